@@ -0,0 +1,291 @@
+package org.ld4l.bib2lod;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.ld4l.bib2lod.rdfconversion.BnodeSkolemizer;
+
+/**
+ * Generates benchmark input shaped like the output of the LC marc2bibframe
+ * converter: one Work, Instance, HeldItem, Title, Person, Topics, Meeting,
+ * Language, Annotation and Identifiers per record, with local names that
+ * start with the record number and madsrdf:Authorities as blank nodes.
+ * Records are generated from the record number alone, so a benchmark always
+ * runs on the same input. Records share names and subjects drawn from small
+ * pools, so that deduping has something to reconcile.
+ */
+public final class SyntheticRecords {
+
+    public static final String LOCAL_NAMESPACE =
+            "http://draft.ld4l.org/cornell/";
+
+    private static final String RDF_TYPE =
+            "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    private static final String BF = "http://bibframe.org/vocab/";
+    private static final String MADS = "http://www.loc.gov/mads/rdf/v1#";
+
+    private static final String[] NAMES = {
+        "Twain, Mark, 1835-1910",
+        "Railton, Stephen, 1948-",
+        "Dvořák, Antonín, 1841-1904",
+        "Brontë, Charlotte, 1816-1855",
+        "Gárdonyi, Géza, 1863-1922",
+        "Müller, Hans-Jürgen, 1950-",
+        "O'Brien, Flann, 1911-1966",
+        "Łukasiewicz, Jan, 1878-1956",
+    };
+
+    private static final String[] TOPICS = {
+        "History",
+        "Cats",
+        "United States--History--Civil War, 1861-1865",
+        "Art, Modern--20th century",
+        "Économie politique",
+        "Mississippi River--Description and travel",
+    };
+
+    private static final String[] LANGUAGES = { "eng", "ger", "fre", "spa" };
+
+    private SyntheticRecords() {}
+
+    /**
+     * Returns the records as N-Triples, as written by the LC converter and
+     * before RDF cleanup: local names start with a digit, and some lines
+     * have empty objects or URIs that must be encoded.
+     */
+    public static String uncleaned(int firstRecord, int count) {
+        return records(firstRecord, count, false);
+    }
+
+    /**
+     * Returns the records as N-Triples, as written by RdfCleaner.
+     */
+    public static String cleaned(int firstRecord, int count) {
+        return records(firstRecord, count, true);
+    }
+
+    /**
+     * Returns a model of the cleaned records.
+     */
+    public static Model cleanedModel(int firstRecord, int count) {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new ByteArrayInputStream(
+                cleaned(firstRecord, count).getBytes(StandardCharsets.UTF_8)),
+                null, "N-TRIPLES");
+        return model;
+    }
+
+    /**
+     * Returns a model of the cleaned records, with blank nodes replaced by
+     * temporary URIs as UriGenerator replaces them before computing their 
+     * unique URIs.
+     */
+    public static Model cleanedModelWithoutBnodes(int firstRecord, int count) {
+        Model cleanedModel = cleanedModel(firstRecord, count);
+        Model model = ModelFactory.createDefaultModel();
+        new BnodeSkolemizer(model, LOCAL_NAMESPACE).add(cleanedModel);
+        cleanedModel.close();
+        return model;
+    }
+
+    /**
+     * Returns the individual lines of the uncleaned records.
+     */
+    public static String[] uncleanedLines(int firstRecord, int count) {
+        return uncleaned(firstRecord, count).split("\n");
+    }
+
+    /**
+     * Returns the labels of the records' names and subjects, as passed to
+     * NACO normalization.
+     */
+    public static String[] labels(int count) {
+        String[] labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = i % 2 == 0 ? name(i) : topic(i);
+        }
+        return labels;
+    }
+
+    private static String records(int firstRecord, int count, boolean cleaned) {
+        StringBuilder sb = new StringBuilder();
+        for (int id = firstRecord; id < firstRecord + count; id++) {
+            record(sb, id, cleaned);
+        }
+        return sb.toString();
+    }
+
+    private static void record(StringBuilder sb, int id, boolean cleaned) {
+
+        String prefix = cleaned ? "n" : "";
+        String work = uri(LOCAL_NAMESPACE + prefix + id);
+        String instance = uri(LOCAL_NAMESPACE + prefix + id + "instance" + 12);
+        String title = uri(LOCAL_NAMESPACE + prefix + id + "title" + 1);
+        String person = uri(LOCAL_NAMESPACE + prefix + id + "person" + 2);
+        String topic = uri(LOCAL_NAMESPACE + prefix + id + "topic" + 3);
+        String fastTopic = uri(LOCAL_NAMESPACE + prefix + id + "topic" + 4);
+        String meeting = uri(LOCAL_NAMESPACE + prefix + id + "meeting" + 5);
+        String provider = uri(LOCAL_NAMESPACE + prefix + id + "provider" + 6);
+        String item = uri(LOCAL_NAMESPACE + prefix + id + "item" + 7);
+        String language = uri(LOCAL_NAMESPACE + prefix + id + "language" + 8);
+        String annotation =
+                uri(LOCAL_NAMESPACE + prefix + id + "annotation" + 9);
+        String isbn = "_:bnode" + id + "isbn";
+        String systemNumber = "_:bnode" + id + "sys";
+        String personAuth = "_:bnode" + id + "auth";
+        String topicAuth = "_:bnode" + id + "tauth";
+        String fastId = "_:bnode" + id + "fid";
+        String fastAuth = "_:bnode" + id + "fauth";
+        String meetingAuth = "_:bnode" + id + "mauth";
+
+        String name = name(id);
+        String subject = topic(id);
+        String workTitle = "The book " + (id % 500);
+
+        type(sb, work, BF + "Work");
+        type(sb, work, BF + "Text");
+        literal(sb, work, BF + "authorizedAccessPoint",
+                name + " " + workTitle);
+        triple(sb, work, uri(BF + "authorizedAccessPoint"),
+                "\"" + Integer.toHexString(id % 500) + "abc\"@x-bf-hash");
+        literal(sb, work, BF + "title", workTitle);
+        triple(sb, work, uri(BF + "language"), uri(
+                "http://id.loc.gov/vocabulary/languages/" + language(id)));
+
+        type(sb, instance, BF + "Instance");
+        type(sb, instance, BF + "Monograph");
+        type(sb, instance, BF + "Print");
+        triple(sb, instance, uri(BF + "instanceOf"), work);
+        literal(sb, instance, BF + "titleStatement",
+                workTitle + " / by " + name + ".");
+        triple(sb, instance, uri(BF + "systemNumber"),
+                uri("http://www.worldcat.org/oclc/" + (1000 + id % 500)));
+        triple(sb, instance, uri(BF + "isbn"), isbn);
+        type(sb, isbn, BF + "Identifier");
+        triple(sb, isbn, uri(BF + "identifierScheme"),
+                uri("http://id.loc.gov/vocabulary/identifiers/isbn"));
+        literal(sb, isbn, BF + "identifierValue", "97801234" + (id % 500));
+        triple(sb, instance, uri(BF + "systemNumber"), systemNumber);
+        type(sb, systemNumber, BF + "Identifier");
+        literal(sb, systemNumber, BF + "identifierValue",
+                String.valueOf(id));
+        triple(sb, systemNumber, uri(BF + "identifierScheme"), uri(
+                "http://id.loc.gov/vocabulary/identifiers/systemNumber"));
+        triple(sb, instance, uri(BF + "publication"), provider);
+        type(sb, provider, BF + "Provider");
+        literal(sb, provider, BF + "providerDate",
+                String.valueOf(1900 + id % 100));
+
+        triple(sb, work, uri(BF + "workTitle"), title);
+        type(sb, title, BF + "Title");
+        literal(sb, title, BF + "titleValue", workTitle);
+        literal(sb, title, BF + "label", workTitle + " : a subtitle");
+        literal(sb, title, BF + "subtitle", "a subtitle");
+
+        triple(sb, work, uri(BF + "creator"), person);
+        type(sb, person, BF + "Person");
+        type(sb, person, BF + "Agent");
+        literal(sb, person, BF + "label", name);
+        literal(sb, person, BF + "authorizedAccessPoint", name);
+        triple(sb, person, uri(BF + "hasAuthority"), personAuth);
+        type(sb, personAuth, MADS + "Authority");
+        type(sb, personAuth, MADS + "PersonalName");
+        literal(sb, personAuth, MADS + "authoritativeLabel", name);
+        triple(sb, personAuth, uri(MADS + "isMemberOfMADSScheme"),
+                uri("http://id.loc.gov/authorities/names"));
+
+        triple(sb, work, uri(BF + "subject"), topic);
+        type(sb, topic, BF + "Topic");
+        literal(sb, topic, BF + "label", subject);
+        literal(sb, topic, BF + "authorizedAccessPoint", subject);
+        triple(sb, topic, uri(BF + "hasAuthority"), topicAuth);
+        type(sb, topicAuth, MADS + "Authority");
+        type(sb, topicAuth, MADS + "Topic");
+        literal(sb, topicAuth, MADS + "authoritativeLabel", subject);
+        triple(sb, topicAuth, uri(MADS + "isMemberOfMADSScheme"),
+                uri("http://id.loc.gov/authorities/subjects"));
+
+        triple(sb, work, uri(BF + "subject"), fastTopic);
+        type(sb, fastTopic, BF + "Topic");
+        literal(sb, fastTopic, BF + "label", subject);
+        triple(sb, fastTopic, uri(BF + "systemNumber"), fastId);
+        type(sb, fastId, BF + "Identifier");
+        literal(sb, fastId, BF + "identifierValue",
+                "(OCoLC)fst0" + (id % TOPICS.length));
+        triple(sb, fastTopic, uri(BF + "hasAuthority"), fastAuth);
+        type(sb, fastAuth, MADS + "Authority");
+        literal(sb, fastAuth, MADS + "authoritativeLabel", subject);
+        triple(sb, fastAuth, uri(MADS + "isMemberOfMADSScheme"), uri(
+                "http://id.loc.gov/vocabulary/subjectSchemes/fast"));
+
+        triple(sb, work, uri(BF + "subject"), meeting);
+        type(sb, meeting, BF + "Meeting");
+        literal(sb, meeting, BF + "label", "Conference on Things");
+        literal(sb, meeting, BF + "authorizedAccessPoint",
+                "Conference on Things");
+        triple(sb, meeting, uri(BF + "hasAuthority"), meetingAuth);
+        type(sb, meetingAuth, MADS + "Authority");
+        type(sb, meetingAuth, MADS + "ConferenceName");
+        literal(sb, meetingAuth, MADS + "authoritativeLabel",
+                "Conference on Things");
+        if (! cleaned) {
+            // RdfCleaner removes statements with an empty object.
+            triple(sb, meetingAuth, uri(MADS + "isMemberOfMADSScheme"), "<>");
+        }
+        triple(sb, meetingAuth, uri(MADS + "isMemberOfMADSScheme"),
+                uri("http://id.loc.gov/authorities/names"));
+
+        type(sb, item, BF + "HeldItem");
+        triple(sb, item, uri(BF + "holdingFor"), instance);
+        literal(sb, item, BF + "shelfMarkLcc", "PS" + (id % 50) + ".A1");
+        literal(sb, item, BF + "barcode", String.valueOf(310000 + id));
+
+        triple(sb, work, uri(BF + "language"), language);
+        type(sb, language, BF + "Language");
+        triple(sb, language, uri(BF + "languageOfPartUri"), uri(
+                "http://id.loc.gov/vocabulary/languages/" + language(id + 1)));
+
+        type(sb, annotation, BF + "Summary");
+        triple(sb, annotation, uri(BF + "summaryOf"), work);
+        literal(sb, annotation, BF + "annotationBody", "Summary " + id);
+
+        // RdfCleaner encodes the space in the URI.
+        triple(sb, work, uri(BF + "classificationLcc"), uri(
+                "http://id.loc.gov/authorities/classification/PS"
+                + (cleaned ? "%20" : " ") + (id % 50)));
+    }
+
+    private static String name(int id) {
+        return NAMES[id % NAMES.length];
+    }
+
+    private static String topic(int id) {
+        return TOPICS[id % TOPICS.length];
+    }
+
+    private static String language(int id) {
+        return LANGUAGES[id % LANGUAGES.length];
+    }
+
+    private static String uri(String uri) {
+        return "<" + uri + ">";
+    }
+
+    private static void type(StringBuilder sb, String subject, String type) {
+        triple(sb, subject, RDF_TYPE, uri(type));
+    }
+
+    private static void literal(StringBuilder sb, String subject,
+            String property, String value) {
+        triple(sb, subject, uri(property), "\"" + value + "\"");
+    }
+
+    private static void triple(StringBuilder sb, String subject,
+            String property, String object) {
+        sb.append(subject).append(' ').append(property).append(' ')
+                .append(object).append(" .\n");
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.lang.StreamRDFCounting;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.vocabulary.RDF;
+import org.ld4l.bib2lod.SyntheticRecords;
+import org.ld4l.bib2lod.rdfconversion.bibframeconversion.BfResourceConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversion of the subjects of one type in a file of synthetic records, 
+ * using the converter that BibframeConverter assigns to the type. The input 
+ * is the output of UriGenerator, as in the pipeline. Scores are per file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BibframeConverterBenchmark {
+
+    @Param({"BF_WORK", "BF_INSTANCE", "BF_HELD_ITEM", "BF_TOPIC", "BF_TITLE", 
+        "BF_PERSON", "BF_MEETING", "BF_LANGUAGE", "BF_IDENTIFIER", 
+        "BF_PROVIDER", "BF_SUMMARY", "MADSRDF_AUTHORITY"})
+    public BfType bfType;
+
+    @Param({"100"})
+    public int recordCount;
+
+    private Model model;
+    private List<Resource> subjects;
+    private BfResourceConverter converter;
+
+    @Setup
+    public void setup() {
+        
+        Model cleanedModel = SyntheticRecords.cleanedModel(1, recordCount);
+        model = ModelFactory.createDefaultModel();
+        new UriGenerator(SyntheticRecords.LOCAL_NAMESPACE, null, null)
+                .convertModel(cleanedModel, 
+                        StreamRDFLib.graph(model.getGraph()));
+        cleanedModel.close();
+        
+        subjects = model.listResourcesWithProperty(RDF.type, bfType.type())
+                .toList();
+        
+        BibframeConverter processor = new BibframeConverter(
+                SyntheticRecords.LOCAL_NAMESPACE, null, null);
+        converter = processor.getConverter(bfType);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.close();
+    }
+
+    @Benchmark
+    public void convert(Blackhole blackhole) {
+        StreamRDFCounting output = StreamRDFLib.count();
+        for (Resource subject : subjects) {
+            converter.convert(subject, output);
+        }
+        blackhole.consume(output.countTriples());
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.ld4l.bib2lod.SyntheticRecords;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cleanup of the lines of a file of synthetic records, through the string
+ * path (processLine()) and through the byte path that RdfCleaner takes for 
+ * N-Triples input (cleanLine()). Scores are per file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RdfCleanerBenchmark {
+
+    @Param({"100"})
+    public int recordCount;
+
+    private RdfCleaner cleaner;
+    private String[] lines;
+    private ByteBuffer input;
+    private int[] lineStarts;
+    private int[] lineEnds;
+    private CleanedLineWriter writer;
+
+    @Setup
+    public void setup() throws IOException {
+        
+        cleaner = new RdfCleaner(SyntheticRecords.LOCAL_NAMESPACE, null, null);
+        lines = SyntheticRecords.uncleanedLines(1, recordCount);
+
+        byte[] bytes = SyntheticRecords.uncleaned(1, recordCount)
+                .getBytes(StandardCharsets.UTF_8);
+        input = ByteBuffer.wrap(bytes);
+        lineStarts = new int[lines.length];
+        lineEnds = new int[lines.length];
+        int start = 0;
+        for (int i = 0; i < lines.length; i++) {
+            int end = start;
+            while (bytes[end] != '\n') {
+                end++;
+            }
+            lineStarts[i] = start;
+            lineEnds[i] = end;
+            start = end + 1;
+        }
+
+        // Discards the output, so that only cleanup is measured.
+        writer = new CleanedLineWriter(null, new NullChannel());
+        writer.setWindow(input, 0);
+    }
+
+    @Benchmark
+    public void processLine(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(
+                    cleaner.processLine(line, RdfCleaner.URI_BRACKETED));
+        }
+    }
+
+    @Benchmark
+    public void cleanLine(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < lineStarts.length; i++) {
+            blackhole.consume(
+                    cleaner.cleanLine(input, lineStarts[i], lineEnds[i], writer));
+        }
+        writer.flush();
+    }
+
+    private static class NullChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+import org.ld4l.bib2lod.SyntheticRecords;
+import org.ld4l.bib2lod.rdfconversion.uniqueuris.BfResourceUriGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Unique URI generation for the resources of one type in a file of 
+ * synthetic records, using the URI generator that UriGenerator assigns to
+ * the type. Scores are per file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriGeneratorBenchmark {
+
+    @Param({"BF_INSTANCE", "BF_WORK", "BF_HELD_ITEM", "BF_TITLE", "BF_TOPIC",
+        "BF_PERSON", "BF_MEETING", "BF_IDENTIFIER", "MADSRDF_AUTHORITY", 
+        "BF_LANGUAGE"})
+    public BfType bfType;
+
+    @Param({"100"})
+    public int recordCount;
+
+    private Model model;
+    private List<Resource> resources;
+    private BfResourceUriGenerator uriGenerator;
+
+    @Setup
+    public void setup() {
+        
+        model = SyntheticRecords.cleanedModelWithoutBnodes(1, recordCount);
+        resources = model.listResourcesWithProperty(RDF.type, bfType.type())
+                .toList();
+        
+        UriGenerator processor = new UriGenerator(
+                SyntheticRecords.LOCAL_NAMESPACE, null, null);
+        uriGenerator = processor.getUriGenerator(bfType);
+    }
+
+    @TearDown
+    public void tearDown() {
+        model.close();
+    }
+
+    @Benchmark
+    public void getUniqueUri(Blackhole blackhole) {
+        for (Resource resource : resources) {
+            blackhole.consume(uriGenerator.getUniqueUri(resource, bfType));
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.ld4l.bib2lod.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ld4l.bib2lod.SyntheticRecords;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hashing of unique keys as built by the URI generators: normalized labels
+ * qualified by a type. Scores are per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MurmurHashBenchmark {
+
+    private static final String TYPE_NAME = "BF_PERSON";
+
+    private String[] keys;
+    private String[] typedKeys;
+    private int next;
+
+    @Setup
+    public void setup() {
+        String[] labels = SyntheticRecords.labels(64);
+        keys = new String[labels.length];
+        typedKeys = new String[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            keys[i] = NacoNormalizer.normalize(labels[i]);
+            typedKeys[i] = TYPE_NAME + keys[i];
+        }
+    }
+
+    @Benchmark
+    public long hash64() {
+        long hash = MurmurHash.hash64(typedKeys[next]);
+        next = (next + 1) % keys.length;
+        return hash;
+    }
+
+    @Benchmark
+    public long hash64Parts() {
+        long hash = MurmurHash.hash64(TYPE_NAME, keys[next]);
+        next = (next + 1) % keys.length;
+        return hash;
+    }
+
+    @Benchmark
+    public long[] hash128Parts() {
+        long[] hash = MurmurHash.hash128(TYPE_NAME, keys[next]);
+        next = (next + 1) % keys.length;
+        return hash;
+    }
+
+}
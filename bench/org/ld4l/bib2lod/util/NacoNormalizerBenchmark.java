@@ -0,0 +1,44 @@
+package org.ld4l.bib2lod.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ld4l.bib2lod.SyntheticRecords;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * NACO normalization of the name and subject labels of synthetic records.
+ * Scores are per label.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NacoNormalizerBenchmark {
+
+    private String[] labels;
+    private int next;
+
+    @Setup
+    public void setup() {
+        labels = SyntheticRecords.labels(64);
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        blackhole.consume(NacoNormalizer.normalize(labels[next]));
+        next = (next + 1) % labels.length;
+    }
+
+}
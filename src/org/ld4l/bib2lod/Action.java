@@ -9,6 +9,7 @@ import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BibframeConverter;
+import org.ld4l.bib2lod.rdfconversion.InputRebalancer;
 import org.ld4l.bib2lod.rdfconversion.RdfCleaner;
 import org.ld4l.bib2lod.rdfconversion.UriGenerator;
 
@@ -26,6 +27,8 @@ public enum Action {
     // CONVERT_BNODES("convert_bnodes", BnodeConverter.class),
     // SPLIT_TYPES("split_types", TypeSplitter.class),
     
+    // Not a prerequisite of the other actions: applied only if specified.
+    REBALANCE("rebalance", InputRebalancer.class),
     CLEAN_RDF("clean_rdf", RdfCleaner.class),
     DEDUPE_RESOURCES("dedupe", UriGenerator.class),
     CONVERT_BIBFRAME("convert_bibframe", BibframeConverter.class);
@@ -23,6 +23,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.validator.routines.UrlValidator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.ld4l.bib2lod.rdfconversion.InputRebalancer;
+import org.ld4l.bib2lod.rdfconversion.RdfProcessor;
+import org.ld4l.bib2lod.rdfconversion.UriGenerator;
+import org.ld4l.bib2lod.rdfconversion.uniqueuris.KeyHash;
 
 
 public class Bib2Lod {
@@ -50,6 +54,12 @@ public class Bib2Lod {
         boolean erase = ! cmd.hasOption("no_erase");
         
         boolean addPrereqs = ! cmd.hasOption("no_prereqs");
+        
+        boolean stream = cmd.hasOption("stream");
+        
+        String uriIndexDir = cmd.getOptionValue("uri_index");
+        
+        String collisionReport = cmd.getOptionValue("collision_report");
 
         // Process commandline arguments and exit if any are invalid.
         String namespace = cmd.getOptionValue("namespace");
@@ -69,6 +79,32 @@ public class Bib2Lod {
             return;
         }
 
+        int threadCount = getThreadCount(cmd.getOptionValue("threads"));
+        if (threadCount < 1) {
+            return;
+        }
+
+        int nacoCacheSize = getNacoCacheSize(cmd.getOptionValue("naco_cache"));
+        if (nacoCacheSize < 0) {
+            return;
+        }
+
+        KeyHash keyHash = getKeyHash(cmd.getOptionValue("key_hash"));
+        if (keyHash == null) {
+            return;
+        }
+
+        int maxFileSize = 
+                getMaxFileSize(cmd.getOptionValue("max_file_size"));
+        if (maxFileSize < 0) {
+            return;
+        }
+
+        int batchSize = getBatchSize(cmd.getOptionValue("batch_size"));
+        if (batchSize < 1) {
+            return;
+        }
+
         String absTopLevelOutputDir = 
                 createTopLevelOutputDir(cmd.getOptionValue("outdir"));
         if (absTopLevelOutputDir == null) {
@@ -91,11 +127,27 @@ public class Bib2Lod {
             LOGGER.info(info + actionLabels.toString());
         }
         LOGGER.info("Delete intermediate output directories: " + erase);
+        LOGGER.info("Number of threads: " + threadCount);
+        LOGGER.info("Stream files through all actions: " + stream);
+        LOGGER.info("URI index directory: " 
+                + (uriIndexDir == null ? "none" : uriIndexDir));
+        LOGGER.info("NACO normalization cache size: " + nacoCacheSize);
+        LOGGER.info("Unique key hash function: " + keyHash.label());
+        LOGGER.info("Key collision report: " 
+                + (collisionReport == null ? "none" : collisionReport));
+        LOGGER.info("Maximum size of files read into memory: " 
+                + (maxFileSize == 0 ? "none" : maxFileSize + " MB"));
+        if (actions.contains(Action.REBALANCE)) {
+            LOGGER.info("Target number of triples in rebalanced files: " 
+                    + batchSize);
+        }
 
 
         
         ProcessController processController = new ProcessController(namespace, 
-                absInputDir, absTopLevelOutputDir, erase, addPrereqs); 
+                absInputDir, absTopLevelOutputDir, erase, addPrereqs, 
+                threadCount, stream, uriIndexDir, nacoCacheSize, keyHash, 
+                collisionReport, maxFileSize, batchSize); 
         String absFinalOutputDir = processController.processAll(actions);
         if (absFinalOutputDir == null) {
             LOGGER.error("Processing failed.");
@@ -169,6 +221,147 @@ public class Bib2Lod {
         return absInputPath;
     }
     
+    /**
+     * Get the number of worker threads. Return the number of threads if 
+     * valid, otherwise log an error and return 0.
+     * @param threads - the commandline value, or null if not specified
+     * @return the number of threads, or 0 if the value is invalid
+     */
+    private static int getThreadCount(String threads) {
+        
+        if (threads == null) {
+            return 1;
+        }
+        
+        int threadCount = 0;
+        try {
+            threadCount = Integer.parseInt(threads);
+        } catch (NumberFormatException e) {
+            // Handled below
+        }
+        
+        if (threadCount < 1) {
+            LOGGER.fatal("Number of threads must be a positive integer.");
+            return 0;
+        }
+        
+        return threadCount;
+    }
+    
+    /**
+     * Get the size of the NACO normalization cache. Return the size if 
+     * valid, otherwise log an error and return -1.
+     * @param cacheSize - the commandline value, or null if not specified
+     * @return the cache size, 0 for no cache, or -1 if the value is invalid
+     */
+    private static int getNacoCacheSize(String cacheSize) {
+        
+        if (cacheSize == null) {
+            return UriGenerator.DEFAULT_NACO_CACHE_SIZE;
+        }
+        
+        int nacoCacheSize = -1;
+        try {
+            nacoCacheSize = Integer.parseInt(cacheSize);
+        } catch (NumberFormatException e) {
+            // Handled below
+        }
+        
+        if (nacoCacheSize < 0) {
+            LOGGER.fatal("NACO cache size must be a non-negative integer.");
+            return -1;
+        }
+        
+        return nacoCacheSize;
+    }
+    
+    /**
+     * Get the target number of triples in the files written by the rebalance
+     * action. Return the number if valid, otherwise log an error and return 
+     * 0.
+     * @param size - the commandline value, or null if not specified
+     * @return the number of triples, or 0 if the value is invalid
+     */
+    private static int getBatchSize(String size) {
+        
+        if (size == null) {
+            return InputRebalancer.DEFAULT_BATCH_SIZE;
+        }
+        
+        int batchSize = 0;
+        try {
+            batchSize = Integer.parseInt(size);
+        } catch (NumberFormatException e) {
+            // Handled below
+        }
+        
+        if (batchSize < 1) {
+            LOGGER.fatal("Batch size must be a positive integer.");
+            return 0;
+        }
+        
+        return batchSize;
+    }
+    
+    /**
+     * Get the size above which an input file is processed in chunks of 
+     * records. Return the size if valid, otherwise log an error and return 
+     * -1.
+     * @param size - the commandline value, or null if not specified
+     * @return the size in megabytes, 0 for no maximum, or -1 if the value is
+     * invalid
+     */
+    private static int getMaxFileSize(String size) {
+        
+        if (size == null) {
+            return RdfProcessor.DEFAULT_MAX_FILE_SIZE;
+        }
+        
+        int maxFileSize = -1;
+        try {
+            maxFileSize = Integer.parseInt(size);
+        } catch (NumberFormatException e) {
+            // Handled below
+        }
+        
+        if (maxFileSize < 0) {
+            LOGGER.fatal("Maximum file size must be a non-negative integer.");
+            return -1;
+        }
+        
+        return maxFileSize;
+    }
+    
+    /**
+     * Get the hash function applied to unique keys. Return the hash function
+     * if valid, otherwise log an error and return null.
+     * @param label - the commandline value, or null if not specified
+     * @return the hash function, or null if the value is invalid
+     */
+    private static KeyHash getKeyHash(String label) {
+        
+        if (label == null) {
+            return KeyHash.MURMUR64;
+        }
+        
+        KeyHash keyHash = KeyHash.get(label);
+        if (keyHash == null) {
+            LOGGER.fatal("Invalid key hash function: " + label 
+                    + ". Valid values: " 
+                    + StringUtils.join(getKeyHashLabels(), ", ") + ".");
+        }
+        
+        return keyHash;
+    }
+    
+    private static List<String> getKeyHashLabels() {
+        List<String> labels = new ArrayList<String>();
+        for (KeyHash keyHash : KeyHash.values()) {
+            labels.add(keyHash.label());
+        }
+        return labels;
+    }
+    
     /**
      * Make output directory and any intermediate directories. Return the 
      * output directory if it was successfully created, otherwise log an error
@@ -281,6 +474,27 @@ public class Bib2Lod {
                 .argName("action")
                 .build());
         
+        options.addOption(Option.builder("b")
+                .longOpt("batch_size")
+                .required(false)
+                .hasArg()
+                .argName("triple_count")
+                .desc("Target number of triples in each of the files "
+                        + "written by the rebalance action. Defaults to " 
+                        + InputRebalancer.DEFAULT_BATCH_SIZE + ".")
+                .build());
+        
+        options.addOption(Option.builder("c")
+                .longOpt("naco_cache")
+                .required(false)
+                .hasArg()
+                .argName("cache_size")
+                .desc("Maximum number of NACO-normalized strings the dedupe "
+                        + "action keeps in memory for reuse. 0 turns off the "
+                        + "cache. Defaults to " 
+                        + UriGenerator.DEFAULT_NACO_CACHE_SIZE + ".")
+                .build());
+        
 
 //        options.addOption(Option.builder("f")
 //                .longOpt("format")
@@ -302,6 +516,29 @@ public class Bib2Lod {
                         + "input files.")
                 .build());
 
+        options.addOption(Option.builder("k")
+                .longOpt("key_hash")
+                .required(false)
+                .hasArg()
+                .argName("hash_function")
+                .desc("Hash function applied to unique keys to mint the local "
+                        + "names of deduped resources. Valid values: "
+                        + StringUtils.join(getKeyHashLabels(), ", ") + ". "
+                        + "Defaults to " + KeyHash.MURMUR64.label() + ".")
+                .build());
+        
+        options.addOption(Option.builder("m")
+                .longOpt("max_file_size")
+                .required(false)
+                .hasArg()
+                .argName("megabytes")
+                .desc("Size in megabytes above which an input file is not "
+                        + "read into memory at once, but processed in chunks "
+                        + "of records, each written to its own output file. "
+                        + "0 turns off chunking. Defaults to " 
+                        + RdfProcessor.DEFAULT_MAX_FILE_SIZE + ".")
+                .build());
+        
         options.addOption(Option.builder("n")
                 .longOpt("namespace")
                 .required()
@@ -340,6 +577,50 @@ public class Bib2Lod {
                 .desc("Absolute or relative path to output directory. "
                         + "Will be created if it does not exist.")
                 .build());
+        
+        options.addOption(Option.builder("r")
+                .longOpt("collision_report")
+                .required(false)
+                .hasArg()
+                .argName("report_file")
+                .desc("Absolute or relative path to a report file for key "
+                        + "collisions. If specified, the dedupe action tracks "
+                        + "different unique keys that hash to the same local "
+                        + "name, and lists them in this file.")
+                .build());
+        
+        options.addOption(Option.builder("s")
+                .longOpt("stream")
+                .required(false)
+                .hasArg(false)
+                .desc("Pass each input file through all the actions in "
+                        + "memory, writing out only the final output. "
+                        + "No intermediate output is written.")
+                .build());
+        
+        options.addOption(Option.builder("t")
+                .longOpt("threads")
+                .required(false)
+                .hasArg()
+                .argName("number_of_threads")
+                .desc("Number of input files to process in parallel. "
+                        + "Defaults to 1.")
+                .build());
+        
+        options.addOption(Option.builder("u")
+                .longOpt("uri_index")
+                .required(false)
+                .hasArg()
+                .argName("index_directory")
+                .desc("Absolute or relative path to a directory holding a "
+                        + "persistent index of the unique URIs generated by "
+                        + "the dedupe action. Will be created if it does not "
+                        + "exist. Reusing the index when a catalog is "
+                        + "reloaded avoids recomputing the URIs of resources "
+                        + "already seen. Delete the index if records have "
+                        + "changed. An index can only be reused with the key "
+                        + "hash and namespace it was built with.")
+                .build());
  
         return options;
     }
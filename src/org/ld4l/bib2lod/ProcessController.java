@@ -9,8 +9,12 @@ import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BibframeConverter;
+import org.ld4l.bib2lod.rdfconversion.InputRebalancer;
 import org.ld4l.bib2lod.rdfconversion.RdfCleaner;
+import org.ld4l.bib2lod.rdfconversion.RdfProcessor;
+import org.ld4l.bib2lod.rdfconversion.StreamingPipeline;
 import org.ld4l.bib2lod.rdfconversion.UriGenerator;
+import org.ld4l.bib2lod.rdfconversion.uniqueuris.KeyHash;
 import org.ld4l.bib2lod.util.Bib2LodStringUtils;
 import org.ld4l.bib2lod.util.TimerUtils;
 
@@ -28,11 +32,31 @@ public class ProcessController {
     private boolean erase;
     private boolean addPrereqs;
     
+    private int threadCount;
+    private boolean stream;
+    private String uriIndexDir;
+    private int nacoCacheSize;
+    private KeyHash keyHash;
+    private String collisionReport;
+    private int maxFileSize;
+    private int batchSize;
+    
     // private OntModel bfOntModel;
     // private OntModel ld4lOntModel;
     
     public ProcessController(String localNamespace, String inputDir, 
             String outputDir, boolean erase, boolean addPrereqs) {
+        this(localNamespace, inputDir, outputDir, erase, addPrereqs, 1, 
+                false, null, UriGenerator.DEFAULT_NACO_CACHE_SIZE, 
+                KeyHash.MURMUR64, null, RdfProcessor.DEFAULT_MAX_FILE_SIZE,
+                InputRebalancer.DEFAULT_BATCH_SIZE);
+    }
+    
+    public ProcessController(String localNamespace, String inputDir, 
+            String outputDir, boolean erase, boolean addPrereqs, 
+            int threadCount, boolean stream, String uriIndexDir, 
+            int nacoCacheSize, KeyHash keyHash, String collisionReport,
+            int maxFileSize, int batchSize) {
         
         this.localNamespace = localNamespace;
         
@@ -42,6 +66,15 @@ public class ProcessController {
         this.erase = erase;
         this.addPrereqs = addPrereqs;
         
+        this.threadCount = threadCount;
+        this.stream = stream;
+        this.uriIndexDir = uriIndexDir;
+        this.nacoCacheSize = nacoCacheSize;
+        this.keyHash = keyHash;
+        this.collisionReport = collisionReport;
+        this.maxFileSize = maxFileSize;
+        this.batchSize = batchSize;
+        
         // loadOntModels();
     }
     
@@ -69,25 +102,79 @@ public class ProcessController {
                 + Bib2LodStringUtils.count(fileCount, "input file") 
                 + " in " + this.inputDir + "."); 
                           
+        String outputDir;
+        
+        // TODO Implement earlier actions: marcxml pre-processing, 
+        // marcxml2bibframe conversion, etc. 
+        
+        if (stream) {
+            // Rebalancing merges and splits files, so it can't be applied to
+            // one file at a time. It is done first, and the pipeline reads 
+            // its output.
+            String newInputDir = inputDir;
+            if (selectedActions.contains(Action.REBALANCE)) {
+                newInputDir = new InputRebalancer(localNamespace, inputDir, 
+                        mainOutputDir, batchSize).process();
+                if (newInputDir == null) {
+                    return null;
+                }
+            }
+            
+            // All selected actions are applied to each file in turn, with no
+            // intermediate output.
+            outputDir = new StreamingPipeline(localNamespace, newInputDir, 
+                    mainOutputDir, threadCount, selectedActions, uriIndexDir, 
+                    nacoCacheSize, keyHash, collisionReport, maxFileSize)
+                    .process();
+            if (outputDir == null) {
+                return null;
+            }
+            deleteLastInputDir(newInputDir, outputDir);
+        
+        } else {
+            outputDir = processActions(selectedActions);
+        }
+        
+        if (outputDir == null) {
+            return null;
+        }
+            
+        LOGGER.info("END CONVERSION! Total duration to convert " 
+                + Bib2LodStringUtils.count(fileCount, "input file") 
+                + ": " + TimerUtils.formatMillis(start, Instant.now())
+                + ". Results in " + outputDir + ".");
+        return outputDir;
+    }
+    
+    private String processActions(Set<Action> selectedActions) {
+        
         // As we move from one process to another, the output directory becomes
         // the input directory of the next process, and a new output directory
         // for the new process is created.
         String newInputDir = this.inputDir;
         String outputDir = newInputDir;
         
-        // TODO Implement earlier actions: marcxml pre-processing, 
-        // marcxml2bibframe conversion, etc. 
+        if (selectedActions.contains(Action.REBALANCE)) {
+            outputDir = new InputRebalancer(localNamespace, newInputDir, 
+                    mainOutputDir, batchSize).process();
+            if (outputDir == null) {
+                return null;
+            }
+            newInputDir = deleteLastInputDir(newInputDir, outputDir);           
+        }
         
         if (selectedActions.contains(Action.CLEAN_RDF)) {
-            outputDir = new RdfCleaner(
-                    localNamespace, newInputDir, mainOutputDir).process();
+            outputDir = new RdfCleaner(localNamespace, newInputDir, 
+                    mainOutputDir, threadCount).process();
             newInputDir = deleteLastInputDir(newInputDir, outputDir);           
         }
      
         if (selectedActions.contains(Action.DEDUPE_RESOURCES)) {
                              
             outputDir = new UriGenerator(localNamespace, 
-                    newInputDir, mainOutputDir).process(); 
+                    newInputDir, mainOutputDir, threadCount, uriIndexDir, 
+                    nacoCacheSize, keyHash, collisionReport, maxFileSize)
+                    .process(); 
                     
             newInputDir = deleteLastInputDir(newInputDir, outputDir);            
         }
@@ -95,14 +182,10 @@ public class ProcessController {
         if (selectedActions.contains(Action.CONVERT_BIBFRAME)) {
 
             outputDir = new BibframeConverter(localNamespace, newInputDir, 
-                    mainOutputDir).process();
+                    mainOutputDir, threadCount).process();
             newInputDir = deleteLastInputDir(newInputDir, outputDir);
         }
-            
-        LOGGER.info("END CONVERSION! Total duration to convert " 
-                + Bib2LodStringUtils.count(fileCount, "input file") 
-                + ": " + TimerUtils.formatMillis(start, Instant.now())
-                + ". Results in " + outputDir + ".");
+        
         return outputDir;
     }
     
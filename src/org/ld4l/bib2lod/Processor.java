@@ -7,6 +7,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -19,18 +25,107 @@ public abstract class Processor {
     private String outputDir;
     private final String mainOutputDir;
     protected final String inputDir;
+    
+    // Number of worker threads used to process the input files. 
+    protected final int threadCount;
 
     public Processor(String inputDir, String mainOutputDir) {
+        this(inputDir, mainOutputDir, 1);
+    }
+    
+    public Processor(String inputDir, String mainOutputDir, int threadCount) {
             
         LOGGER.trace("In constructor for " + this.getClass().toString());            
         this.inputDir = inputDir;
         this.mainOutputDir = mainOutputDir;
-        this.outputDir = createOutputDir();              
+        this.threadCount = threadCount;
     }
 
     public abstract String process();
+    
+    /**
+     * Processes a single input file. fileCount is the position of the file in
+     * the sorted list of input files, starting from 1.
+     */
+    protected interface FileTask {
+        void process(File file, int fileCount);
+    }
+    
+    /**
+     * Apply the task to each of the input files. If more than one thread has 
+     * been requested, the files are handed to a pool of worker threads.  
+     * Files are submitted in the order given, and each task receives the 
+     * position of its file in that order, so file numbering in the logs and
+     * output filenames are the same as in a sequential run. Only the order in
+     * which the files are completed varies. With one thread or several, a 
+     * file whose processing fails is logged and skipped, and the remaining
+     * files are processed.
+     * @param inputFiles - the input files, sorted
+     * @param task - the task to apply to each file
+     */
+    protected void processFiles(File[] inputFiles, FileTask task) {
+        
+        if (threadCount <= 1) {
+            int fileCount = 0;
+            for (File file : inputFiles) {
+                fileCount++;
+                try {
+                    task.process(file, fileCount);
+                } catch (RuntimeException e) {
+                    logFailure(file, e);
+                }
+            }
+            return;
+        }
+        
+        LOGGER.debug("Processing " + inputFiles.length + " files with " 
+                + threadCount + " threads.");
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>> results = new ArrayList<Future<?>>(inputFiles.length);
+        for (int i = 0; i < inputFiles.length; i++) {
+            File file = inputFiles[i];
+            int fileCount = i + 1;
+            results.add(pool.submit(() -> task.process(file, fileCount)));
+        }
+        pool.shutdown();
+        
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get();
+            } catch (ExecutionException e) {
+                // As in the sequential path, errors such as running out of
+                // memory end the run.
+                if (e.getCause() instanceof Error) {
+                    pool.shutdownNow();
+                    throw (Error) e.getCause();
+                }
+                logFailure(inputFiles[i], e.getCause());
+            } catch (InterruptedException e) {
+                LOGGER.error("Interrupted while waiting for file processing "
+                        + "to complete.");
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
 
-    protected String getOutputDir() {
+    private static void logFailure(File file, Throwable cause) {
+        LOGGER.error("ERROR: processing of file " + file.getName() 
+                + " failed: " + cause, cause);
+    }
+
+    /**
+     * Return the output directory of this process, creating it on first use.
+     * A Processor that is used only as a stage of another process (see 
+     * StreamingPipeline) never writes its own output, and so never creates 
+     * its output directory.
+     */
+    protected synchronized String getOutputDir() {
+        if (outputDir == null) {
+            outputDir = createOutputDir();
+        }
         return outputDir;
     }
 
@@ -64,7 +159,7 @@ public abstract class Processor {
     
     protected String stubProcess() {
         copyFiles(inputDir);
-        return outputDir;
+        return getOutputDir();
     }
     
     /**
@@ -72,7 +167,7 @@ public abstract class Processor {
      * @param inputDir - location of the input files
      */
     protected String copyFiles(String inputDir) {
-        return copyFiles(inputDir, outputDir);       
+        return copyFiles(inputDir, getOutputDir());       
     }
     
     /**
@@ -93,7 +188,7 @@ public abstract class Processor {
      * @param file - the input file
      */
     protected String copyFile(File file) {
-        return copyFile(file, outputDir);
+        return copyFile(file, getOutputDir());
     }
  
     /**
@@ -2,6 +2,7 @@ package org.ld4l.bib2lod.rdfconversion;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -312,8 +313,7 @@ public enum BfProperty {
     }
     
     public static Map<Property, Property> propertyMap() {
-        LOGGER.debug("PROPERTY_MAP: " + PROPERTY_MAP.toString());
-        return PROPERTY_MAP;
+        return Collections.unmodifiableMap(PROPERTY_MAP);
     }
 
     public static Map<Property, Property> propertyMap(
@@ -252,7 +252,7 @@ public enum BfType {
     }
     
     public static Map<Resource, Resource> typeMap() {
-        return TYPE_MAP;
+        return Collections.unmodifiableMap(TYPE_MAP);
     }
     
     public static Map<Resource, Resource> typeMap(Map<BfType, Ld4lType> map) {
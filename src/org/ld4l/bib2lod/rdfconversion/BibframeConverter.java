@@ -5,15 +5,17 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.rdf.model.ResIterator;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,10 +45,6 @@ public class BibframeConverter extends RdfProcessor {
     private static final Logger LOGGER = 
             LogManager.getLogger(BibframeConverter.class);
 
-    // Order may matter, so use LinkedHashMap
-    private static Map<BfType, BfResourceConverter> CONVERTERS =
-            new LinkedHashMap<BfType, BfResourceConverter>();
-    
     private static final Map<BfType, Class<?>> CONVERTERS_BY_TYPE =
             new LinkedHashMap<BfType, Class<?>>();
     static {
@@ -106,15 +104,30 @@ public class BibframeConverter extends RdfProcessor {
         CONVERTERS_BY_TYPE.put(BfType.BF_RESOURCE, BfResourceConverter.class);
     }
     
+    private static final TypeRanking CONVERTER_TYPE_RANKING = 
+            new TypeRanking(CONVERTERS_BY_TYPE.keySet());
+    
+    // Each worker thread gets its own set of converters, since the converters
+    // hold the state of the subject currently being converted.
+    private final ThreadLocal<Map<BfType, BfResourceConverter>> converters =
+            ThreadLocal.withInitial(this::createConverters);
+    
     public BibframeConverter(String localNamespace, String inputDir,
             String mainOutputDir) {
-        super(localNamespace, inputDir, mainOutputDir);
-        
-        createConverters();
+        this(localNamespace, inputDir, mainOutputDir, 1);
+    }
+    
+    public BibframeConverter(String localNamespace, String inputDir,
+            String mainOutputDir, int threadCount) {
+        super(localNamespace, inputDir, mainOutputDir, threadCount);
     }
    
-    private void createConverters() {
+    private Map<BfType, BfResourceConverter> createConverters() {
 
+        // Order may matter, so use LinkedHashMap
+        Map<BfType, BfResourceConverter> converters =
+                new LinkedHashMap<BfType, BfResourceConverter>();
+        
         Map<Class<?>, BfResourceConverter> instantiatedClasses = 
                 new HashMap<Class<?>, BfResourceConverter>();
         
@@ -138,7 +151,7 @@ public class BibframeConverter extends RdfProcessor {
                     LOGGER.warn("Can't instantiate class " 
                             + converterClass.getName());
                     e.printStackTrace();
-                    return;
+                    return converters;
                 }   
                 
                 instantiatedClasses.put(converterClass, converter);
@@ -149,8 +162,18 @@ public class BibframeConverter extends RdfProcessor {
                 converter = instantiatedClasses.get(converterClass);
             }
             
-            CONVERTERS.put(bfType, converter);
+            converters.put(bfType, converter);
         }
+        
+        return converters;
+    }
+
+    /**
+     * Returns the current thread's converter for the type, or null if the 
+     * type has none. Used by the benchmarks.
+     */
+    BfResourceConverter getConverter(BfType bfType) {
+        return converters.get().get(bfType);
     }
 
     @Override
@@ -169,11 +192,8 @@ public class BibframeConverter extends RdfProcessor {
         // files).
         Arrays.sort(inputFiles);
         
-        int fileCount = 0;
-        for ( File file : inputFiles ) {            
-            fileCount++;
-            convertFile(file, fileCount, totalFileCount);          
-        }  
+        processFiles(inputFiles, (file, fileCount) -> 
+                convertFile(file, fileCount, totalFileCount));
 
         LOGGER.info("END Bibframe RDF conversion of all input files. "
                 + "Duration: " + TimerUtils.getDuration(processStart) + ".");
@@ -194,24 +214,21 @@ public class BibframeConverter extends RdfProcessor {
         
         Model inputModel = readModelFromFile(file);
 
-        Model outputModel = ModelFactory.createDefaultModel();
+        // Converted statements are written out subject by subject rather 
+        // than collected in an output model.
+        String basename = FilenameUtils.getBaseName(file.toString());
+        NTriplesSink output = openOutputFile(basename);
+        if (output == null) {
+            inputModel.close();
+            return;
+        }
 
-        List<Resource> resourcesToRemove = new ArrayList<Resource>();
+        int subjectCount = convertModel(inputModel, output);
         
-        // Iterate through the types in the specified order
-        int subjectCount = 0;
-        for (Map.Entry<BfType, BfResourceConverter> entry: 
-                CONVERTERS.entrySet()) {
- 
-            BfType bfType = entry.getKey();
-            BfResourceConverter converter = entry.getValue();
-            
-            subjectCount += convertResourceType(bfType, converter, inputModel, 
-                    outputModel, resourcesToRemove);
+        if (! closeOutputFile(output, basename)) {
+            inputModel.close();
+            return;
         }
-   
-        String basename = FilenameUtils.getBaseName(file.toString());
-        writeModelToFile(outputModel, basename); 
         
         LOGGER.info("End Bibframe RDF conversion of file " + filename 
                 + " (file " + fileCount + " of " 
@@ -222,59 +239,82 @@ public class BibframeConverter extends RdfProcessor {
                 + Bib2LodStringUtils.count(inputModel.size(), "triple") + " "
                 + "with "
                 + Bib2LodStringUtils.count(subjectCount, "subject") + " to "                 
-                + Bib2LodStringUtils.count(outputModel.size(), "triple") + ". "                     
+                + Bib2LodStringUtils.count(output.tripleCount(), "triple") + ". "                     
                 + "Duration: " + TimerUtils.getDuration(fileStart) + ".");               
                 
         inputModel.close();
-        outputModel.close();
     }
     
-    private int convertResourceType(
-            BfType bfType, BfResourceConverter converter, Model inputModel, 
-            Model outputModel, List<Resource> resourcesToRemove) {
-    
+    /**
+     * Convert the Bibframe input model to LD4L, sending the converted 
+     * statements to the output stream. Returns the number of subjects 
+     * converted.
+     */
+    int convertModel(Model inputModel, StreamRDF output) {
+        
+        // Resources designated for removal by a converter, shared by all the
+        // converters for this file.
+        Set<Node> resourcesToRemove = new HashSet<Node>();
+        for (BfResourceConverter converter : converters.get().values()) {
+            converter.setResourcesToRemove(resourcesToRemove);
+        }
+        
+        // Assign each subject to the converter for the type of highest
+        // priority among its types, in one pass over the rdf:type 
+        // statements, so that a subject with several types is converted 
+        // only once.
+        Map<BfType, List<Resource>> subjectsByType = 
+                new LinkedHashMap<BfType, List<Resource>>();
+        for (BfType bfType : CONVERTERS_BY_TYPE.keySet()) {
+            subjectsByType.put(bfType, new ArrayList<Resource>());
+        }
+        for (Map.Entry<Node, Long> entry : CONVERTER_TYPE_RANKING
+                .getTypeMasks(inputModel.getGraph()).entrySet()) {
+            BfType bfType = CONVERTER_TYPE_RANKING
+                    .getHighestPriorityType(entry.getValue());
+            subjectsByType.get(bfType).add(
+                    inputModel.wrapAsResource(entry.getKey()));
+        }
+        
+        // Convert the subjects type by type in the specified order, since a
+        // converter may remove resources of a later type.
         int subjectCount = 0;
+        for (Map.Entry<BfType, List<Resource>> entry : 
+                subjectsByType.entrySet()) {
+            
+            BfResourceConverter converter = 
+                    converters.get().get(entry.getKey());
+            for (Resource subject : entry.getValue()) {
+                subjectCount++;
+                convertSubject(subject, converter, output, resourcesToRemove);
+            }
+        }
         
-        // Get all the subjects of this type
-        ResIterator subjects = inputModel.listResourcesWithProperty(
-                RDF.type, bfType.type());
-
-        // Iterate through the subjects of this type and convert
-        while (subjects.hasNext()) {
-            subjectCount++;
-            Resource subject = subjects.nextResource();
-            convertSubject(subject, converter, outputModel, resourcesToRemove);
-        }                   
-
         return subjectCount;
     }
     
     private void convertSubject(Resource subject, BfResourceConverter converter,
-            Model outputModel, List<Resource> resourcesToRemove) {
+            StreamRDF output, Set<Node> resourcesToRemove) {
 
-        if (resourcesToRemove.contains(subject)) {
+        if (resourcesToRemove.contains(subject.asNode())) {
             // If a previous converter has designated this resource for
             // removal, do not process it, and do not add it to the 
             // output model. Example: a Meeting removes the associated
             // madsrdf:Authority, since in LD4L a Meeting is an Event
             // rather than an Authority.
             LOGGER.debug("Removing subject " + subject.getURI());
-            resourcesToRemove.remove(subject);  
             
         } else {
         
             LOGGER.debug("Processing subject " + subject.getURI());
             
-            // Convert the subject and add to the output model for the file.
-            Model convertedModel = converter.convert(subject);
-            outputModel.add(convertedModel);
-            convertedModel.close();  
+            // Convert the subject and write it out.
+            converter.convert(subject, output);
             
-            // Get the resources the converter has designated for 
-            // removal. These will be tested on subsequent iterations
-            // through the subjects iterator, and if it is in the list,
+            // The converter has added the resources it designated for 
+            // removal to resourcesToRemove. These will be tested on 
+            // subsequent subjects, and if a resource is in the set, 
             // conversion will be skipped over.
-            resourcesToRemove.addAll(converter.getResourcesToRemove());
         }
     }
 }
@@ -0,0 +1,86 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.system.StreamOps;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+
+/**
+ * Replaces blank nodes with temporary URIs in the local namespace as triples
+ * are parsed, so that UriGenerator can process them as it does the URIs
+ * minted by the LC converter. The temporary local name is derived from the
+ * blank node label, so that all triples of a blank node get the same URI 
+ * without renaming the blank node throughout a model. Records the temporary 
+ * URIs, since they can't otherwise be told apart from LC URIs.
+ */
+public class BnodeSkolemizer extends StreamRDFWrapper {
+
+    private final String localNamespace;
+    private final Map<Node, Node> bnodesToTempUris = new HashMap<Node, Node>();
+    private final Set<Node> tempUris = new HashSet<Node>();
+    
+    public BnodeSkolemizer(StreamRDF sink, String localNamespace) {
+        super(sink);
+        this.localNamespace = localNamespace;
+    }
+    
+    /**
+     * Returns a skolemizer that adds the triples to the model.
+     */
+    public BnodeSkolemizer(Model model, String localNamespace) {
+        this(StreamRDFLib.graph(model.getGraph()), localNamespace);
+    }
+    
+    @Override
+    public void triple(Triple triple) {
+        Node subject = triple.getSubject();
+        Node object = triple.getObject();
+        if (subject.isBlank() || object.isBlank()) {
+            triple = Triple.create(skolemize(subject), triple.getPredicate(), 
+                    skolemize(object));
+        }
+        super.triple(triple);
+    }
+    
+    /**
+     * Sends the statements of the model, which may contain blank nodes, to 
+     * the sink.
+     */
+    public void add(Model model) {
+        StreamOps.sendTriplesToStream(model.getGraph(), this);
+    }
+    
+    /**
+     * Returns the temporary URIs assigned to blank nodes.
+     */
+    public Set<Node> tempUris() {
+        return Collections.unmodifiableSet(tempUris);
+    }
+    
+    private Node skolemize(Node node) {
+        if (! node.isBlank()) {
+            return node;
+        }
+        Node tempUri = bnodesToTempUris.get(node);
+        if (tempUri == null) {
+            // Not a randomly-generated local name, so that the same blank
+            // node always gets the same URI.
+            tempUri = NodeFactory.createURI(localNamespace + "n" 
+                    + node.getBlankNodeLabel());
+            bnodesToTempUris.put(node, tempUri);
+            tempUris.add(tempUri);
+        }
+        return tempUri;
+    }
+
+}
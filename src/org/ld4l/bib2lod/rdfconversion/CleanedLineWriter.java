@@ -0,0 +1,141 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the output of RdfCleaner to a channel. The cleaner reads the input
+ * file through a memory-mapped window and either copies ranges of the window
+ * unchanged or writes new bytes. Contiguous copied ranges are coalesced, and
+ * long runs are transferred from the input channel to the output channel
+ * without passing through the Java heap. Everything else is collected in a
+ * buffer and written when the buffer is full.
+ */
+class CleanedLineWriter {
+
+    // Copied runs at least this long are transferred channel to channel.
+    // Shorter runs are cheaper to copy into the buffer.
+    private static final int TRANSFER_THRESHOLD = 1 << 13;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel input;
+    private final WritableByteChannel output;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private ByteBuffer window;
+    private long windowPosition;
+
+    // Pending run of copied bytes, in window coordinates. The run follows
+    // the contents of the buffer.
+    private int runStart;
+    private int runEnd;
+
+    /**
+     * @param input - the input file channel, or null if the window is not
+     * mapped from a file
+     * @param output - the output channel
+     */
+    CleanedLineWriter(FileChannel input, WritableByteChannel output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * Sets the window of the input that subsequent copies refer to.
+     * @param window - the window
+     * @param windowPosition - the position of the window in the input file
+     */
+    void setWindow(ByteBuffer window, long windowPosition) throws IOException {
+        endRun();
+        this.window = window;
+        this.windowPosition = windowPosition;
+    }
+
+    /**
+     * Copies the bytes of the window from start (inclusive) to end
+     * (exclusive).
+     */
+    void copy(int start, int end) throws IOException {
+        if (start == end) {
+            return;
+        }
+        if (start != runEnd) {
+            endRun();
+            runStart = start;
+        }
+        runEnd = end;
+    }
+
+    void write(byte[] bytes) throws IOException {
+        endRun();
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (! buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    void write(byte b) throws IOException {
+        endRun();
+        if (! buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        buffer.put(b);
+    }
+
+    /**
+     * Writes out all pending output. Doesn't close the channels.
+     */
+    void flush() throws IOException {
+        endRun();
+        flushBuffer();
+    }
+
+    private void endRun() throws IOException {
+
+        int length = runEnd - runStart;
+        if (length == 0) {
+            return;
+        }
+
+        if (input != null && length >= TRANSFER_THRESHOLD) {
+            flushBuffer();
+            long position = windowPosition + runStart;
+            long end = windowPosition + runEnd;
+            while (position < end) {
+                position += input.transferTo(position, end - position, output);
+            }
+        } else {
+            ByteBuffer run = window.duplicate();
+            run.limit(runEnd).position(runStart);
+            while (run.hasRemaining()) {
+                if (! buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+                int partLength = 
+                        Math.min(buffer.remaining(), run.remaining());
+                ByteBuffer part = run.duplicate();
+                part.limit(part.position() + partLength);
+                buffer.put(part);
+                run.position(run.position() + partLength);
+            }
+        }
+
+        runStart = runEnd = 0;
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
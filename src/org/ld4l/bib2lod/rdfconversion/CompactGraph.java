@@ -0,0 +1,357 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+import org.apache.jena.graph.Capabilities;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.AllCapabilities;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+
+/**
+ * A read-only graph for the input files of the processing stages, which are
+ * parsed once and then only queried. Each distinct node is stored once, in
+ * a NodeDictionary, and triples are stored as node ids in int arrays:
+ * sorted by subject, predicate and object, and, as a permutation of those,
+ * by object, predicate and subject. A find with a concrete subject or
+ * object is a binary search on one of the two orders; other finds scan the
+ * triples. A triple costs 16 bytes, compared to several hundred in the
+ * default in-memory graph, and Triple objects are created only for the
+ * triples returned by a find.
+ *
+ * Nodes are matched by term equality, so a find for a literal does not
+ * match a different literal with the same value, as it can in the default
+ * graph. The graph is built by parsing into a CompactGraph.Builder, and
+ * cannot be modified afterward. Prefixes are not kept.
+ */
+public class CompactGraph extends GraphBase {
+
+    // Node id of a wildcard, and of a concrete node not in the graph.
+    private static final int ANY = -1;
+    private static final int ABSENT = -2;
+
+    private static final Capabilities CAPABILITIES = new AllCapabilities() {
+        @Override
+        public boolean addAllowed() {
+            return false;
+        }
+        @Override
+        public boolean addAllowed(boolean everyTriple) {
+            return false;
+        }
+        @Override
+        public boolean deleteAllowed() {
+            return false;
+        }
+        @Override
+        public boolean deleteAllowed(boolean everyTriple) {
+            return false;
+        }
+        @Override
+        public boolean iteratorRemoveAllowed() {
+            return false;
+        }
+        @Override
+        public boolean handlesLiteralTyping() {
+            return false;
+        }
+    };
+
+    private final NodeDictionary dictionary;
+    // Subject, predicate and object ids of each triple, in SPO order.
+    private final int[] spo;
+    // Triple numbers in OPS order.
+    private final int[] ops;
+    private final int size;
+
+    private CompactGraph(NodeDictionary dictionary, int[] spo, int[] ops) {
+        this.dictionary = dictionary;
+        this.spo = spo;
+        this.ops = ops;
+        this.size = ops.length;
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple match) {
+        return graphBaseFind(match.getMatchSubject(),
+                match.getMatchPredicate(), match.getMatchObject());
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(
+            Node subject, Node predicate, Node object) {
+
+        int s = idOf(subject);
+        int p = idOf(predicate);
+        int o = idOf(object);
+        if (s == ABSENT || p == ABSENT || o == ABSENT) {
+            return NiceIterator.emptyIterator();
+        }
+
+        if (s != ANY) {
+            int from = bound(false, s, p, false);
+            int to = bound(false, s, p, true);
+            return new Matches(false, from, to, ANY, ANY, o);
+        }
+        if (o != ANY) {
+            int from = bound(true, o, p, false);
+            int to = bound(true, o, p, true);
+            return new Matches(true, from, to, ANY, ANY, ANY);
+        }
+        return new Matches(false, 0, size, ANY, p, ANY);
+    }
+
+    @Override
+    protected int graphBaseSize() {
+        return size;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        return CAPABILITIES;
+    }
+
+    /**
+     * Returns the dictionary of the nodes of the graph. The dictionary may
+     * also hold nodes that are not in the graph.
+     */
+    public NodeDictionary dictionary() {
+        return dictionary;
+    }
+    
+    /**
+     * Passes the subject and object ids of each triple with the specified
+     * predicate id to the consumer, in subject order. Lets callers that 
+     * dispatch on vocabulary ids skip creating Triples and looking up 
+     * nodes.
+     */
+    public void forEachWithPredicate(int predicate, IdPairConsumer consumer) {
+        for (int i = 0; i < spo.length; i += 3) {
+            if (spo[i + 1] == predicate) {
+                consumer.accept(spo[i], spo[i + 2]);
+            }
+        }
+    }
+    
+    public interface IdPairConsumer {
+        void accept(int subject, int object);
+    }
+
+    private int idOf(Node node) {
+        if (node == null || ! node.isConcrete()) {
+            return ANY;
+        }
+        int id = dictionary.lookUp(node);
+        return id < 0 ? ABSENT : id;
+    }
+
+    /*
+     * Returns the position in SPO or OPS order of the first triple whose
+     * first node, and second node if it is not ANY, are greater than (upper)
+     * or not less than (lower) the specified ones.
+     */
+    private int bound(boolean byObject, int first, int second,
+            boolean upper) {
+
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int triple = byObject ? ops[mid] : mid;
+            int cmp = Integer.compare(
+                    spo[3 * triple + (byObject ? 2 : 0)], first);
+            if (cmp == 0 && second != ANY) {
+                cmp = Integer.compare(spo[3 * triple + 1], second);
+            }
+            if (cmp < 0 || (upper && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private class Matches extends NiceIterator<Triple> {
+
+        private final boolean byObject;
+        private final int end;
+        private final int s;
+        private final int p;
+        private final int o;
+        private int next;
+
+        Matches(boolean byObject, int from, int to, int s, int p, int o) {
+            this.byObject = byObject;
+            this.next = from;
+            this.end = to;
+            this.s = s;
+            this.p = p;
+            this.o = o;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next < end && ! matches(tripleAt(next))) {
+                next++;
+            }
+            return next < end;
+        }
+
+        @Override
+        public Triple next() {
+            ensureHasNext();
+            int triple = 3 * tripleAt(next++);
+            return Triple.create(dictionary.node(spo[triple]), 
+                    dictionary.node(spo[triple + 1]),
+                    dictionary.node(spo[triple + 2]));
+        }
+
+        private int tripleAt(int position) {
+            return byObject ? ops[position] : position;
+        }
+
+        private boolean matches(int triple) {
+            int i = 3 * triple;
+            return (s == ANY || spo[i] == s)
+                    && (p == ANY || spo[i + 1] == p)
+                    && (o == ANY || spo[i + 2] == o);
+        }
+    }
+
+    /**
+     * Collects parsed triples and builds a CompactGraph from them. Duplicate
+     * triples are stored once. Use as the destination of a parser, then
+     * call build(); the builder can't be used afterward.
+     */
+    public static class Builder implements StreamRDF {
+
+        private final NodeDictionary dictionary;
+        private int[] triples = new int[3 * 256];
+        private int tripleCount;
+        
+        public Builder() {
+            this(new NodeDictionary());
+        }
+        
+        /**
+         * Creates a builder that adds the nodes of the graph to an existing
+         * dictionary; e.g., the dictionary of the graph of the previous 
+         * stage for the same file, whose nodes mostly recur. The dictionary
+         * grows as nodes are added, so it must not be used by another 
+         * thread meanwhile.
+         */
+        public Builder(NodeDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public void start() { }
+
+        @Override
+        public void triple(Triple triple) {
+            if (3 * tripleCount == triples.length) {
+                triples = Arrays.copyOf(triples, 2 * triples.length);
+            }
+            int i = 3 * tripleCount++;
+            triples[i] = dictionary.id(triple.getSubject());
+            triples[i + 1] = dictionary.id(triple.getPredicate());
+            triples[i + 2] = dictionary.id(triple.getObject());
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            triple(quad.asTriple());
+        }
+
+        @Override
+        public void base(String base) { }
+
+        @Override
+        public void prefix(String prefix, String iri) { }
+
+        @Override
+        public void finish() { }
+
+        public CompactGraph build() {
+
+            int[] order = identity(tripleCount);
+            sort(order, (a, b) -> compare(triples, a, b, 0, 1, 2));
+
+            // Copy the triples in SPO order, dropping duplicates.
+            int[] spo = new int[3 * tripleCount];
+            int size = 0;
+            for (int k = 0; k < tripleCount; k++) {
+                int i = 3 * order[k];
+                if (size > 0 && triples[i] == spo[3 * size - 3]
+                        && triples[i + 1] == spo[3 * size - 2]
+                        && triples[i + 2] == spo[3 * size - 1]) {
+                    continue;
+                }
+                System.arraycopy(triples, i, spo, 3 * size++, 3);
+            }
+            spo = Arrays.copyOf(spo, 3 * size);
+
+            int[] ops = identity(size);
+            final int[] sorted = spo;
+            sort(ops, (a, b) -> compare(sorted, a, b, 2, 1, 0));
+
+            CompactGraph graph = new CompactGraph(dictionary, spo, ops);
+            triples = null;
+            return graph;
+        }
+
+        private static int compare(int[] triples, int a, int b,
+                int first, int second, int third) {
+            int i = 3 * a;
+            int j = 3 * b;
+            int cmp = Integer.compare(triples[i + first], triples[j + first]);
+            if (cmp == 0) {
+                cmp = Integer.compare(
+                        triples[i + second], triples[j + second]);
+            }
+            if (cmp == 0) {
+                cmp = Integer.compare(triples[i + third], triples[j + third]);
+            }
+            return cmp;
+        }
+
+        private static int[] identity(int length) {
+            int[] array = new int[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = i;
+            }
+            return array;
+        }
+
+        /*
+         * Merge sort of an int array with an int comparator, to avoid boxing.
+         */
+        private static void sort(int[] array, IntBinaryOperator comparator) {
+            int[] buffer = new int[array.length];
+            for (int width = 1; width < array.length; width *= 2) {
+                for (int low = 0; low < array.length; low += 2 * width) {
+                    int mid = Math.min(low + width, array.length);
+                    int high = Math.min(low + 2 * width, array.length);
+                    int i = low;
+                    int j = mid;
+                    for (int k = low; k < high; k++) {
+                        if (i < mid && (j >= high || comparator.applyAsInt(
+                                array[i], array[j]) <= 0)) {
+                            buffer[k] = array[i++];
+                        } else {
+                            buffer[k] = array[j++];
+                        }
+                    }
+                }
+                System.arraycopy(buffer, 0, array, 0, array.length);
+            }
+        }
+    }
+
+}
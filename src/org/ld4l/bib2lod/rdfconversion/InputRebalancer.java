@@ -0,0 +1,292 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ld4l.bib2lod.Format;
+import org.ld4l.bib2lod.util.Bib2LodStringUtils;
+import org.ld4l.bib2lod.util.TimerUtils;
+
+/**
+ * Rewrites the N-Triples input files as files of roughly the same number of
+ * triples, so that the files processed in parallel by the later actions
+ * take about the same time. Small files are merged and large files are
+ * split. Files are split only between records, as RecordChunker splits
+ * them: the record of a triple is given by the record number in the local
+ * name of its subject, and the triples of blank nodes and of external
+ * resources go with the record being read.
+ *
+ * Runs before RDF cleanup, so the input is handled as lines of text rather
+ * than parsed, since the errors RdfCleaner corrects can't be parsed. Lines
+ * are copied unchanged, except that blank node labels are prefixed with the
+ * number of their input file, so that the blank nodes of merged files stay
+ * distinct. Files in other serializations can't be split without parsing,
+ * so they are copied unchanged.
+ */
+public class InputRebalancer extends RdfProcessor {
+
+    private static final Logger LOGGER =
+            LogManager.getLogger(InputRebalancer.class);
+
+    // Default target number of triples in an output file.
+    public static final int DEFAULT_BATCH_SIZE =
+            RecordChunker.DEFAULT_CHUNK_SIZE;
+
+    private static final String OUTPUT_BASENAME = "records";
+    private static final String BNODE_PREFIX = "_:";
+
+    private final int batchSize;
+
+    private Writer output;
+    private File outputFile;
+    private int outputFileCount;
+    private int outputTripleCount;
+    private String record;
+    // The local name of the subject of the last line and its record number,
+    // since a subject's lines mostly come together.
+    private String lastLocalName;
+    private String lastRecord;
+
+    /**
+     * @param batchSize - the target number of triples in an output file. A
+     * file is ended at the first record boundary after it has reached this
+     * number.
+     */
+    public InputRebalancer(String localNamespace, String inputDir,
+            String mainOutputDir, int batchSize) {
+        super(localNamespace, inputDir, mainOutputDir);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String process() {
+
+        Instant processStart = Instant.now();
+        LOGGER.info("START input rebalancing.");
+
+        String outputDir = getOutputDir();
+
+        File[] inputFiles = new File(inputDir).listFiles();
+        int totalFileCount = inputFiles.length;
+
+        // For consistent ordering. The order of the input files determines
+        // the content of the output files.
+        Arrays.sort(inputFiles);
+
+        // A failure to read or write a file would lose the rest of its
+        // records, so it ends the action.
+        int fileCount = 0;
+        File file = null;
+        try {
+            for (File inputFile : inputFiles) {
+                file = inputFile;
+                fileCount++;
+                rebalanceFile(file, fileCount);
+            }
+            file = null;
+            closeOutputFile();
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot rebalance " 
+                    + (file == null ? "input" : "file " + file.getName())
+                    + (outputFile == null ? "" 
+                            : " into output file " + outputFile.getName()) 
+                    + ": " + e.getMessage() 
+                    + ". Ending the rebalance action.");
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException closeException) {
+                    // The action has already failed.
+                }
+            }
+            return null;
+        }
+
+        LOGGER.info("END input rebalancing of "
+                + Bib2LodStringUtils.count(totalFileCount, "input file")
+                + " into "
+                + Bib2LodStringUtils.count(outputFileCount, "output file")
+                + ". Duration: " + TimerUtils.getDuration(processStart) + ".");
+
+        return outputDir;
+    }
+
+    private void rebalanceFile(File file, int fileCount) throws IOException {
+
+        String filename = file.getName();
+
+        // Skip directories and empty files, as RdfCleaner does.
+        if (file.isDirectory()) {
+            LOGGER.trace(
+                    "Skipping " + filename + " because it is a directory.");
+            return;
+        }
+        if (file.length() == 0) {
+            LOGGER.trace("Skipping " + filename + " because it is empty.");
+            return;
+        }
+
+        if (! FilenameUtils.getExtension(filename).equals(
+                Format.NTRIPLES.extension())) {
+            LOGGER.warn("File " + filename + " is not N-Triples. Copying "
+                    + "unchanged.");
+            copyFile(file);
+            return;
+        }
+
+        LOGGER.debug("Rebalancing file " + filename + ".");
+
+        String bnodePrefix = BNODE_PREFIX + "f" + fileCount + "_";
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                writeLine(relabelBnodes(line, bnodePrefix));
+            }
+        }
+    }
+
+    private void writeLine(String line) throws IOException {
+
+        String lineRecord = getRecord(line);
+        if (lineRecord != null && ! lineRecord.equals(record)) {
+            if (output != null && outputTripleCount >= batchSize) {
+                closeOutputFile();
+            }
+            record = lineRecord;
+        }
+
+        if (output == null) {
+            outputFileCount++;
+            outputFile = new File(getOutputDir(), getOutputFilename(
+                    getChunkBasename(OUTPUT_BASENAME, outputFileCount)));
+            output = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(outputFile), StandardCharsets.UTF_8));
+            outputTripleCount = 0;
+        }
+
+        output.write(line);
+        output.write('\n');
+        outputTripleCount++;
+    }
+
+    private void closeOutputFile() throws IOException {
+
+        if (output == null) {
+            return;
+        }
+
+        output.close();
+        output = null;
+    }
+
+    /*
+     * Returns the record number of the subject of the line, or null if the
+     * subject is a blank node or a resource outside the local namespace.
+     */
+    private String getRecord(String line) {
+
+        if (! line.startsWith("<") || ! line.startsWith(localNamespace, 1)) {
+            return null;
+        }
+        int start = localNamespace.length() + 1;
+        if (lastLocalName != null 
+                && line.startsWith(lastLocalName, start)
+                && line.startsWith(">", start + lastLocalName.length())) {
+            return lastRecord;
+        }
+        int end = line.indexOf('>', start);
+        if (end < 0) {
+            return null;
+        }
+        lastLocalName = line.substring(start, end);
+        lastRecord = getRecordNumber(lastLocalName);
+        return lastRecord;
+    }
+
+    /*
+     * Prefixes the blank node labels of the subject and object of the line.
+     */
+    static String relabelBnodes(String line, String prefix) {
+
+        if (! line.contains(BNODE_PREFIX)) {
+            return line;
+        }
+
+        StringBuilder relabeled = new StringBuilder(line.length() + 16);
+        int subjectEnd = endOfToken(line, 0);
+        appendTerm(relabeled, line.substring(0, subjectEnd), prefix);
+
+        int objectStart = skipWhitespace(line,
+                endOfToken(line, skipWhitespace(line, subjectEnd)));
+        relabeled.append(line, subjectEnd, objectStart);
+
+        if (line.startsWith(BNODE_PREFIX, objectStart)) {
+            int objectEnd = endOfToken(line, objectStart);
+            // The final period may directly follow the object.
+            if (objectEnd == line.length() && line.endsWith(".")) {
+                objectEnd--;
+            }
+            appendTerm(relabeled, line.substring(objectStart, objectEnd),
+                    prefix);
+            relabeled.append(line, objectEnd, line.length());
+        } else {
+            relabeled.append(line, objectStart, line.length());
+        }
+
+        return relabeled.toString();
+    }
+
+    private static void appendTerm(StringBuilder line, String term,
+            String prefix) {
+        if (term.startsWith(BNODE_PREFIX)) {
+            line.append(prefix).append(term, BNODE_PREFIX.length(),
+                    term.length());
+        } else {
+            line.append(term);
+        }
+    }
+
+    private static int endOfToken(String line, int start) {
+        // URIs in the input may contain spaces, which RdfCleaner encodes.
+        if (start < line.length() && line.charAt(start) == '<') {
+            int end = line.indexOf('>', start);
+            return end < 0 ? line.length() : end + 1;
+        }
+        int end = start;
+        while (end < line.length()
+                && ! Character.isWhitespace(line.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int skipWhitespace(String line, int end) {
+        int start = end;
+        while (start < line.length()
+                && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+}
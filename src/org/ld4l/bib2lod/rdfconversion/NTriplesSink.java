@@ -0,0 +1,106 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.system.StreamOps;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Writes triples to an N-Triples file as a processor produces them, so that
+ * the processor doesn't build its complete output model in memory before
+ * writing it out. Output goes through a large buffer to a file channel,
+ * which is closed by close().
+ *
+ * N-Triples is a line-based format, so a triple that is sent more than once
+ * is written more than once. Duplicate lines don't change the graph the file
+ * is read into.
+ */
+public class NTriplesSink implements StreamRDF, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final OutputStream out;
+    private final StreamRDF writer;
+    private long tripleCount;
+
+    public NTriplesSink(File file, boolean append) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND
+                        : StandardOpenOption.TRUNCATE_EXISTING);
+        this.out = new BufferedOutputStream(
+                Channels.newOutputStream(channel), BUFFER_SIZE);
+        this.writer = StreamRDFLib.writer(out);
+        writer.start();
+    }
+
+    /**
+     * Writes the statements of the model.
+     */
+    public void add(Model model) {
+        StreamOps.sendTriplesToStream(model.getGraph(), this);
+    }
+
+    /**
+     * Returns the number of triples written, including duplicates.
+     */
+    public long tripleCount() {
+        return tripleCount;
+    }
+
+    @Override
+    public void start() {
+        // Started by the constructor
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        writer.triple(triple);
+        tripleCount++;
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void base(String base) {
+        // Not used in N-Triples
+    }
+
+    @Override
+    public void prefix(String prefix, String iri) {
+        // Not used in N-Triples
+    }
+
+    @Override
+    public void finish() {
+        // Finished by close()
+    }
+
+    /**
+     * Flushes the output and closes the file. The file is closed even if the
+     * output can't be flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.finish();
+        } finally {
+            out.close();
+        }
+    }
+
+}
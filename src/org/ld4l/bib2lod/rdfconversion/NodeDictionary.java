@@ -0,0 +1,148 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.Arrays;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Assigns int ids to the nodes of a file. The classes and properties of the
+ * Bibframe and LD4L vocabularies (BfType, BfProperty, Ld4lType and
+ * Ld4lProperty), and rdf:type, are registered in every dictionary with the
+ * same ids, below vocabularySize(), so that code can dispatch on them by
+ * array index. Other nodes get ids in the order they are first seen.
+ *
+ * A dictionary is not safe for use by several threads; each file gets its
+ * own.
+ */
+public class NodeDictionary {
+
+    public static final int RDF_TYPE = 0;
+
+    private static final NodeDictionary VOCABULARY = new NodeDictionary(
+            new Node[1024], new int[2048], 0);
+    static {
+        VOCABULARY.id(RDF.type.asNode());
+        for (BfType bfType : BfType.values()) {
+            VOCABULARY.id(bfType.type().asNode());
+        }
+        for (BfProperty bfProp : BfProperty.values()) {
+            VOCABULARY.id(bfProp.property().asNode());
+        }
+        for (Ld4lType ld4lType : Ld4lType.values()) {
+            VOCABULARY.id(ld4lType.type().asNode());
+        }
+        for (Ld4lProperty ld4lProp : Ld4lProperty.values()) {
+            VOCABULARY.id(ld4lProp.property().asNode());
+        }
+    }
+    private static final int VOCABULARY_SIZE = VOCABULARY.size;
+
+    private Node[] nodes;
+    // Open addressing table of node ids + 1, by node hash code. 0 marks an
+    // empty slot.
+    private int[] idTable;
+    private int size;
+
+    /**
+     * Creates a dictionary holding the vocabulary nodes.
+     */
+    public NodeDictionary() {
+        this(Arrays.copyOf(VOCABULARY.nodes,
+                Math.max(256, VOCABULARY.nodes.length)),
+                VOCABULARY.idTable.clone(), VOCABULARY.size);
+    }
+
+    private NodeDictionary(Node[] nodes, int[] idTable, int size) {
+        this.nodes = nodes;
+        this.idTable = idTable;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of vocabulary nodes. Their ids are 0 up to this
+     * number.
+     */
+    public static int vocabularySize() {
+        return VOCABULARY_SIZE;
+    }
+
+    /**
+     * Returns the id of a vocabulary node, or -1 if the node is not in the
+     * vocabulary.
+     */
+    public static int vocabularyId(Node node) {
+        return VOCABULARY.lookUp(node);
+    }
+
+    /**
+     * Returns the id of the node, adding it to the dictionary if it isn't
+     * there.
+     */
+    public int id(Node node) {
+
+        int id = lookUp(node);
+        if (id >= 0) {
+            return id;
+        }
+
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+        }
+        id = size++;
+        nodes[id] = node;
+        if (2 * size > idTable.length) {
+            idTable = new int[2 * idTable.length];
+            for (int i = 0; i < size; i++) {
+                insert(i);
+            }
+        } else {
+            insert(id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the node, or -1 if it is not in the dictionary.
+     */
+    public int lookUp(Node node) {
+
+        int mask = idTable.length - 1;
+        for (int slot = slot(node, mask); ; slot = (slot + 1) & mask) {
+            int entry = idTable[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (nodes[entry - 1].equals(node)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public Node node(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * Returns the number of nodes in the dictionary, including the
+     * vocabulary nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void insert(int id) {
+        int mask = idTable.length - 1;
+        int slot = slot(nodes[id], mask);
+        while (idTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        idTable[slot] = id + 1;
+    }
+
+    private static int slot(Node node, int mask) {
+        int hash = node.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+}
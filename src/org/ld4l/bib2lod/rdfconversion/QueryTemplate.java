@@ -0,0 +1,96 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.QuerySolution;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.ResultBinding;
+import org.apache.jena.sparql.core.Substitute;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryIterator;
+
+/**
+ * A SPARQL query that is parsed and compiled to algebra once, then executed
+ * for each resource by substituting the resource for a query variable. This
+ * replaces setting the variable on a ParameterizedSparqlString and parsing
+ * the resulting query string for every resource. A template is immutable, so
+ * a single instance can be shared by all threads.
+ *
+ * Execution applies the same substitution and optimization steps as a
+ * QueryExecution with an initial binding, so results, including their order,
+ * are the same as those of the parameterized query.
+ */
+public class QueryTemplate {
+
+    private final Query query;
+    private final Op op;
+
+    public QueryTemplate(String queryString) {
+        this.query = QueryFactory.create(queryString);
+        this.op = Algebra.compile(query);
+    }
+
+    /**
+     * Executes a SELECT query with no variables bound.
+     */
+    public List<QuerySolution> select(Model model) {
+        return select(model, null, null);
+    }
+
+    /**
+     * Executes a SELECT query with the variable bound to the value. Returns
+     * the query solutions in order. Solution values belong to the model.
+     */
+    public List<QuerySolution> select(
+            Model model, String var, RDFNode value) {
+
+        List<QuerySolution> solutions = new ArrayList<QuerySolution>();
+        QueryIterator iterator = exec(model, var, value);
+        try {
+            while (iterator.hasNext()) {
+                solutions.add(
+                        new ResultBinding(model, iterator.nextBinding()));
+            }
+        } finally {
+            iterator.close();
+        }
+        return solutions;
+    }
+
+    /**
+     * Executes an ASK query with the variable bound to the value.
+     */
+    public boolean ask(Model model, String var, RDFNode value) {
+
+        QueryIterator iterator = exec(model, var, value);
+        try {
+            return iterator.hasNext();
+        } finally {
+            iterator.close();
+        }
+    }
+
+    private QueryIterator exec(Model model, String var, RDFNode value) {
+
+        Op boundOp = op;
+        if (var != null) {
+            boundOp = Substitute.substitute(
+                    op, Var.alloc(var), value.asNode());
+        }
+
+        // Optimizes the substituted op before evaluating it.
+        return Algebra.exec(boundOp, model.getGraph());
+    }
+
+    @Override
+    public String toString() {
+        return query.toString();
+    }
+
+}
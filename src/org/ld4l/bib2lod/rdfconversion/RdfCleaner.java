@@ -1,23 +1,24 @@
 package org.ld4l.bib2lod.rdfconversion;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.LineIterator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.util.Bib2LodStringUtils;
@@ -28,7 +29,7 @@ public class RdfCleaner extends RdfProcessor {
     private static final Logger LOGGER = LogManager.getLogger(RdfCleaner.class);
     
     // ntriples, turtle
-    private static final Pattern URI_BRACKETED = 
+    static final Pattern URI_BRACKETED = 
             Pattern.compile("(?<=<)http://[^>]+(?=>)");  
     
     private static final Pattern URI_RDFXML = 
@@ -70,8 +71,19 @@ public class RdfCleaner extends RdfProcessor {
 //    private static final Pattern DEC_CODE_PATTERN = 
 //            Pattern.compile("&#(\\d+);");
     
-    private final Pattern BAD_LOCALNAME = 
-            Pattern.compile("(" + localNamespace + ")(\\d)");
+    // Byte sequences used to scan lines of bracketed-URI input without 
+    // decoding them. See cleanLine().
+    private static final byte[] EMPTY_URI = bytes("<>");
+    private static final byte[] EMPTY_RDF_RESOURCE = bytes("rdf:resource=\"\"");
+    private static final byte[] BRACKETED_HTTP = bytes("<http://");
+    
+    // Input files are mapped in windows of at most this size. A line must 
+    // fit in a window.
+    private static final int MAPPED_WINDOW_SIZE = 1 << 28;
+    
+    private final byte[] localNamespaceBytes = bytes(localNamespace);
+    private final byte[] alphaPrefixBytes = 
+            bytes(RdfProcessor.getLocalNameAlphaPrefix());
     
 //    private final Pattern BNODE_ID = 
 //            Pattern.compile("_:bnode\\d+");
@@ -81,6 +93,11 @@ public class RdfCleaner extends RdfProcessor {
             String localNamespace, String inputDir, String mainOutputDir) {            
         super(localNamespace, inputDir, mainOutputDir);
     }
+    
+    public RdfCleaner(String localNamespace, String inputDir, 
+            String mainOutputDir, int threadCount) {            
+        super(localNamespace, inputDir, mainOutputDir, threadCount);
+    }
 
     @Override
     public String process() {
@@ -99,44 +116,9 @@ public class RdfCleaner extends RdfProcessor {
         Arrays.sort(inputFiles);
 //        LOGGER.info("Sorted " + Bib2LodStringUtils.count(totalFileCount, "file") 
 //                + ". Duration: " + TimerUtils.getDuration(processStart) + "."); 
-                                       
-        int fileCount = 0;
-        for ( File file : inputFiles ) {
-            
-            Instant fileStartTime = Instant.now();
-            fileCount++;  
-            
-            String filename = file.getName();
 
-            // Skip directories and empty files (Jena chokes when reading an 
-            // empty file into a model in later processors). Makes sense to 
-            // clean them up here.
-            if (file.isDirectory()) { 
-                LOGGER.trace(
-                        "Skipping " + filename + " because it is a directory.");
-                continue;
-            }
-            if (file.length() == 0) {
-                LOGGER.trace("Skipping " + filename + " because it is empty.");
-                continue;
-            }
-                        
-            LOGGER.info("Start RDF cleanup in file " + filename 
-                    + " (file " + fileCount + " of " + totalFileCount  
-                    + " input "
-                    + Bib2LodStringUtils.count(totalFileCount, "file")
-                    + ").");
-            
-            replaceLinesInFile(file, outputDir); 
-            
-            LOGGER.info("End RDF cleanup in file " + filename + " (file "
-                    + fileCount + " of " 
-                    + Bib2LodStringUtils.count(totalFileCount, " input file")  
-                    + " = " 
-                    + TimerUtils.percent(fileCount, totalFileCount) + "%). "
-                    + "Duration: " + TimerUtils.getDuration(fileStartTime)
-                    + ".");
-        }
+        processFiles(inputFiles, (file, fileCount) -> 
+                cleanFile(file, fileCount, totalFileCount, outputDir));
         
         LOGGER.info("END RDF cleanup in total of "                
                 + Bib2LodStringUtils.count(totalFileCount, "input file")
@@ -145,6 +127,43 @@ public class RdfCleaner extends RdfProcessor {
         return outputDir;
     }
     
+    private void cleanFile(File file, int fileCount, int totalFileCount, 
+            String outputDir) {
+        
+        Instant fileStartTime = Instant.now();
+        
+        String filename = file.getName();
+
+        // Skip directories and empty files (Jena chokes when reading an 
+        // empty file into a model in later processors). Makes sense to 
+        // clean them up here.
+        if (file.isDirectory()) { 
+            LOGGER.trace(
+                    "Skipping " + filename + " because it is a directory.");
+            return;
+        }
+        if (file.length() == 0) {
+            LOGGER.trace("Skipping " + filename + " because it is empty.");
+            return;
+        }
+                    
+        LOGGER.info("Start RDF cleanup in file " + filename 
+                + " (file " + fileCount + " of " + totalFileCount  
+                + " input "
+                + Bib2LodStringUtils.count(totalFileCount, "file")
+                + ").");
+        
+        replaceLinesInFile(file, outputDir); 
+        
+        LOGGER.info("End RDF cleanup in file " + filename + " (file "
+                + fileCount + " of " 
+                + Bib2LodStringUtils.count(totalFileCount, " input file")  
+                + " = " 
+                + TimerUtils.percent(fileCount, totalFileCount) + "%). "
+                + "Duration: " + TimerUtils.getDuration(fileStartTime)
+                + ".");
+    }
+    
     
     /*
      * Done as string replacement, because the illegal RDF handled by 
@@ -155,6 +174,29 @@ public class RdfCleaner extends RdfProcessor {
      *
      */
     protected void replaceLinesInFile(File file, String outputDir) {
+        
+        String outputFilename =
+                FilenameUtils.getName(file.toString()); 
+        
+        File outputFile = new File(outputDir, outputFilename);
+        
+        try (FileChannel output = 
+                new FileOutputStream(outputFile, true).getChannel()) {
+            replaceLinesInFile(file, output);
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot write cleaned RDF of file " 
+                    + file.getName() + " to " + outputFile.getName() + ": "
+                    + e.getMessage());
+        }       
+    }
+    
+    /**
+     * Write the cleaned lines of the file to the output channel, UTF-8 
+     * encoded. Used directly by StreamingPipeline, which writes the cleaned
+     * lines to a temporary file.
+     */
+    void replaceLinesInFile(File file, WritableByteChannel output) 
+            throws IOException {
          
         String fileExt = FilenameUtils.getExtension(file.getName());
         
@@ -179,52 +221,249 @@ public class RdfCleaner extends RdfProcessor {
 //        LOGGER.debug("Using uri pattern " + uriPattern.toString() 
 //                + " for file extension " + fileExt);
         
-        String outputFilename =
-                FilenameUtils.getName(file.toString()); 
-        
-        File outputFile = new File(outputDir, outputFilename);
+        try (FileChannel input = FileChannel.open(
+                file.toPath(), StandardOpenOption.READ)) {
+            replaceLines(file, input, output, uriPattern);
+        }
+    }
+
+    /*
+     * Read the input through mapped windows, writing the cleaned lines to 
+     * the output.
+     */
+    private void replaceLines(File file, FileChannel input, 
+            WritableByteChannel output, Pattern uriPattern) 
+            throws IOException {
+
+        CleanedLineWriter writer = new CleanedLineWriter(input, output);
         
-        BufferedReader reader;
-        try {           
-            reader = Files.newBufferedReader(file.toPath());
-      
-            PrintWriter writer = new PrintWriter(new BufferedWriter(
-                    new FileWriter(outputFile, true)));     
+        long size = input.size();
+        long position = 0;
+        while (position < size) {
             
-            LineIterator iterator = new LineIterator(reader);
-            
-            while (iterator.hasNext()) {
-                String line = iterator.nextLine();
+            int windowSize = 
+                    (int) Math.min(size - position, MAPPED_WINDOW_SIZE);
+            boolean lastWindow = position + windowSize == size;
+            MappedByteBuffer window = input.map(
+                    FileChannel.MapMode.READ_ONLY, position, windowSize);
+            writer.setWindow(window, position);
 
-                String processedLine = processLine(line, uriPattern);
+            // Split lines as BufferedReader.readLine() does: a line is 
+            // terminated by \n, \r, or \r\n. Output lines are terminated 
+            // by \n. A line that may continue in the next window is left 
+            // for the next window.
+            int start = 0;
+            while (start < windowSize) {
+                int end = start;
+                while (end < windowSize && window.get(end) != '\n' 
+                        && window.get(end) != '\r') {
+                    end++;
+                }
                 
-                if (LOGGER.isDebugEnabled()) {
-                    // append newline before comparing lines?
-                    if (!line.equals(processedLine)) {
-                        // LOGGER.debug("Original: " + line);
-                        // LOGGER.debug("New: " + processedLine);
+                int next = end + 1;
+                if (end == windowSize) {
+                    if (! lastWindow) {
+                        break;
+                    }
+                } else if (window.get(end) == '\r') {
+                    if (next == windowSize && ! lastWindow) {
+                        break;
+                    }
+                    if (next < windowSize && window.get(next) == '\n') {
+                        next++;
                     }
                 }
                 
-                writer.append(processedLine + "\n");
-                
-                if (LOGGER.isDebugEnabled()) {
-                    if (processedLine.contains("<>")) {
-                        // LOGGER.debug("Writing out: " + processedLine);
-                    }
+                if (uriPattern != URI_BRACKETED 
+                        || ! cleanLine(window, start, end, writer)) {
+                    ByteBuffer lineBytes = window.duplicate();
+                    lineBytes.limit(end).position(start);
+                    String line = 
+                            StandardCharsets.UTF_8.decode(lineBytes).toString();
+                    String processedLine = processLine(line, uriPattern);
+                    writer.write(bytes(processedLine));
+                    writer.write((byte) '\n');
                 }
+                
+                start = next;
             }
             
-            reader.close();
-            writer.close();
-              
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
-        }       
+            if (start == 0 && ! lastWindow) {
+                throw new IOException("Line longer than " 
+                        + MAPPED_WINDOW_SIZE + " bytes in file " 
+                        + file.getName() + ".");
+            }
+            position += Math.min(start, windowSize);
+        }
+        
+        writer.flush();
+    }
+    
+    /*
+     * Byte-level equivalent of processLine() for bracketed-URI input, for the
+     * common case where the URIs in the line don't need encoding. Writes the 
+     * cleaned line to the writer and returns true. Unchanged parts of the
+     * line are copied from the input rather than re-encoded. Returns false 
+     * without writing anything if a URI might be changed by encodeUris(), in
+     * which case the line must be decoded and processed as a string.
+     * 
+     * Package visibility for testing.
+     */
+    boolean cleanLine(ByteBuffer line, int start, int end, 
+            CleanedLineWriter writer) throws IOException {
+        
+        // removeStatementWithEmptyObject()
+        if (indexOf(line, start, end, EMPTY_URI) >= 0 
+                || indexOf(line, start, end, EMPTY_RDF_RESOURCE) >= 0) {
+            writer.write((byte) '\n');
+            return true;
+        }
+        
+        // encodeUris(): find URIs as URI_BRACKETED does. A URI runs from 
+        // "http://" following a "<" to the next ">", and must contain at
+        // least one character following "http://".
+        int pos = start;
+        while ((pos = indexOf(line, pos, end, BRACKETED_HTTP)) >= 0) {
+            int uriStart = pos + 1;
+            int uriEnd = uriStart + BRACKETED_HTTP.length - 1;
+            while (uriEnd < end && line.get(uriEnd) != '>') {
+                uriEnd++;
+            }
+            if (uriEnd == end) {
+                // No closing bracket, so no further URIs in the line.
+                break;
+            }
+            if (uriEnd > uriStart + BRACKETED_HTTP.length - 1 
+                    && ! isUnchangedByEncoding(line, uriStart, uriEnd)) {
+                return false;
+            }
+            pos = uriEnd;
+        }
+        
+        // fixLocalNames()
+        int written = start;
+        pos = start;
+        while ((pos = indexOf(line, pos, end, localNamespaceBytes)) >= 0) {
+            int digit = pos + localNamespaceBytes.length;
+            if (digit < end 
+                    && line.get(digit) >= '0' && line.get(digit) <= '9') {
+                writer.copy(written, digit);
+                writer.write(alphaPrefixBytes);
+                written = digit;
+                pos = digit + 1;
+            } else {
+                pos++;
+            }
+        }
+        // Copy a \n terminator along with the line, so that the copies of
+        // consecutive lines can be coalesced.
+        if (end < line.limit() && line.get(end) == '\n') {
+            writer.copy(written, end + 1);
+        } else {
+            writer.copy(written, end);
+            writer.write((byte) '\n');
+        }
+        
+        return true;
+    }
+    
+    /*
+     * Returns true if the http URI between start and end is certain to be
+     * left unchanged by the URL and URI parsing and re-encoding in 
+     * encodeUris(). Deliberately conservative: anything unusual returns false,
+     * and the line is processed as a string.
+     */
+    private static boolean isUnchangedByEncoding(
+            ByteBuffer line, int start, int end) {
+        
+        // Host: labels of ASCII letters, digits and hyphens, separated by 
+        // dots. The URI constructor requires a valid server-based authority;
+        // user info and ports are left to the string processing.
+        int pos = start + BRACKETED_HTTP.length - 1;
+        int labelStart = pos;
+        while (pos < end) {
+            byte b = line.get(pos);
+            if (b == '.') {
+                if (! isHostLabel(line, labelStart, pos)) {
+                    return false;
+                }
+                labelStart = pos + 1;
+            } else if (! isAlphaNum(b) && b != '-') {
+                break;
+            }
+            pos++;
+        }
+        if (! isHostLabel(line, labelStart, pos) 
+                // The last label of a hostname starts with a letter.
+                || ! isAlpha(line.get(labelStart))) {
+            return false;
+        }
+        if (pos < end && line.get(pos) != '/' && line.get(pos) != '?' 
+                && line.get(pos) != '#') {
+            return false;
+        }
+        
+        // Path, query and fragment: only characters that are legal in all
+        // three components. % is always re-encoded by the URI constructor. A
+        // second # is illegal in the fragment, and &# is replaced. URL
+        // removes . and .. segments from the path.
+        boolean inFragment = false;
+        byte previous = 0;
+        for ( ; pos < end; pos++) {
+            byte b = line.get(pos);
+            if (b == '#') {
+                if (inFragment || previous == '&') {
+                    return false;
+                }
+                inFragment = true;
+            } else if (b == '.' && previous == '/') {
+                return false;
+            } else if (b != '?' && ! isUriChar(b)) {
+                return false;
+            }
+            previous = b;
+        }
+        
+        return true;
+    }
+    
+    private static boolean isHostLabel(ByteBuffer line, int start, int end) {
+        return end > start 
+                && line.get(start) != '-' && line.get(end - 1) != '-';
+    }
+    
+    private static boolean isAlpha(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+    
+    private static boolean isAlphaNum(byte b) {
+        return isAlpha(b) || (b >= '0' && b <= '9');
+    }
+    
+    private static boolean isUriChar(byte b) {
+        return isAlphaNum(b) || "-_.!~*'():@&=+$,;/".indexOf(b) >= 0;
+    }
+    
+    private static int indexOf(
+            ByteBuffer bytes, int from, int to, byte[] target) {
+        int last = to - target.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes.get(i + j) != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
     }
     
-    private String processLine(String line, Pattern uriPattern) {
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    String processLine(String line, Pattern uriPattern) {
 
         line = removeStatementWithEmptyObject(line);
         if (line.trim().isEmpty()) {
@@ -443,25 +682,44 @@ public class RdfCleaner extends RdfProcessor {
      */
     protected String fixLocalNames(String line) {
         
+        // Most lines have no local name starting with a digit: return the 
+        // line itself without copying it.
+        int digit = indexOfBadLocalName(line, 0);
+        if (digit == -1) {
+            return line;
+        }
+        
         String alphaPrefix = RdfProcessor.getLocalNameAlphaPrefix();
+        StringBuilder sb = new StringBuilder(line.length() + 16);
+        int written = 0;
+        while (digit != -1) {
+            sb.append(line, written, digit).append(alphaPrefix);
+            written = digit;
+            digit = indexOfBadLocalName(line, digit + 1);
+        }
+        sb.append(line, written, line.length());
         
-        StringBuilder sb = new StringBuilder(line);
-        LOGGER.debug(line);
-        Matcher m = BAD_LOCALNAME.matcher(sb);
-        int matchPointer = 0;
         if (LOGGER.isDebugEnabled()) {
-            if (!m.find(matchPointer)) {
-                LOGGER.debug("No local name starting with digit found.");
-            }
+            LOGGER.debug("Returning from fixLocalNames(): " + sb.toString());
         }
-        while (m.find(matchPointer)) {
-            LOGGER.debug("Match: " + m.group(1) + " " + m.group(2));
-            sb.replace(m.start(), m.end(),
-                     m.group(1) + alphaPrefix + m.group(2));
-            matchPointer = m.end() + 1;
-        }     
-        LOGGER.debug("Returning from fixLocalNames(): " + sb.toString());
         return sb.toString();     
     } 
+    
+    /*
+     * Returns the index of the first digit, at or after fromIndex, that 
+     * immediately follows the local namespace, or -1 if there is none.
+     */
+    private int indexOfBadLocalName(String line, int fromIndex) {
+        int index = line.indexOf(localNamespace, fromIndex);
+        while (index != -1) {
+            int digit = index + localNamespace.length();
+            if (digit < line.length() && line.charAt(digit) >= '0' 
+                    && line.charAt(digit) <= '9') {
+                return digit;
+            }
+            index = line.indexOf(localNamespace, index + 1);
+        }
+        return -1;
+    }
 
 }
@@ -1,11 +1,14 @@
 package org.ld4l.bib2lod.rdfconversion;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.UUID;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.atlas.RuntimeIOException;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.RDFNode;
@@ -14,6 +17,7 @@ import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDF;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -42,6 +46,10 @@ public abstract class RdfProcessor extends Processor {
      */
     protected static final Format RDF_OUTPUT_FORMAT = Format.NTRIPLES;
     private static String LOCAL_NAME_ALPHA_PREFIX = "n";
+    
+    // Default size in megabytes above which an input file is read in 
+    // chunks of records rather than into a single model.
+    public static final int DEFAULT_MAX_FILE_SIZE = 512;
             
     protected final String localNamespace;    
     // protected OntModel bfOntModel; 
@@ -62,7 +70,20 @@ public abstract class RdfProcessor extends Processor {
      */
     public RdfProcessor(String localNamespace, String inputDir, 
             String mainOutputDir) {
-        super(inputDir, mainOutputDir);
+        this(localNamespace, inputDir, mainOutputDir, 1);                     
+    }
+    
+    /**
+     * Constructor for processors that process input files with a pool of 
+     * worker threads.
+     * @param localNamespace
+     * @param inputDir
+     * @param mainOutputDir
+     * @param threadCount
+     */
+    public RdfProcessor(String localNamespace, String inputDir, 
+            String mainOutputDir, int threadCount) {
+        super(inputDir, mainOutputDir, threadCount);
         LOGGER.trace("In constructor for " + this.getClass().toString());        
         this.localNamespace = localNamespace;                      
     }
@@ -84,20 +105,65 @@ public abstract class RdfProcessor extends Processor {
         return readModelFromFile(file.toString());
     }
     
+    /**
+     * Read a file into a read-only model backed by a CompactGraph.
+     */
     protected Model readModelFromFile(String filename) {
         //return RDFDataMgr.loadModel(filename);
         // LOGGER.debug("Reading file " + filename);
-        Model model = ModelFactory.createDefaultModel(); 
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        readFile(filename, builder);
+        return ModelFactory.createModelForGraph(builder.build());
+    }
+    
+    /**
+     * Parse a file, sending the triples to the destination as they are 
+     * parsed. As when reading into a model, triples parsed before an error
+     * are kept.
+     */
+    protected void readFile(String filename, StreamRDF destination) {
         try {
-            model.read(filename);
+            RDFDataMgr.parse(destination, filename);
         } catch (RiotException e) {
            LOGGER.error("ERROR: RDF parsing error in file " 
                    + FilenameUtils.getName(filename) + ": " + e.getMessage()
                    + ". Skipping rest of file.");
         }
-        return model;
     }
-
+    
+    /**
+     * Returns true if the file is larger than the maximum size, in 
+     * megabytes, of a file read into memory at once. A maximum of 0 means
+     * there is no maximum.
+     */
+    protected static boolean isOversized(File file, int maxFileSize) {
+        return maxFileSize > 0 && file.length() > maxFileSize * 1048576L;
+    }
+    
+    /**
+     * Parse a file too large to read into memory at once, passing its 
+     * triples to the handler in chunks of whole records, as determined by 
+     * a RecordChunker. Only files with the URIs minted by the LC converter 
+     * can be split into records. Returns the number of chunks.
+     */
+    protected int readFileInChunks(String filename, 
+            RecordChunker.ChunkHandler handler) {
+        RecordChunker chunker = new RecordChunker(localNamespace, handler);
+        readFile(filename, chunker);
+        // The parser doesn't finish after a parsing error.
+        chunker.finish();
+        return chunker.chunkCount();
+    }
+    
+    /**
+     * Returns the basename of the output file of a chunk of an input file, 
+     * so that the chunks of a file sort in order.
+     */
+    protected static String getChunkBasename(String basename, 
+            int chunkNumber) {
+        return String.format("%s_%05d", basename, chunkNumber);
+    }
+    
     /** 
      * Debugging method: Output all statements in a model
      */
@@ -157,16 +223,77 @@ public abstract class RdfProcessor extends Processor {
     }
     
     private void writeModelToFile(Model model, File file, boolean append) {
-        FileOutputStream outStream;
-        try {
-            outStream = new FileOutputStream(file, append);
+        
+        if (getOutputFormat() == Format.NTRIPLES) {
+            try (NTriplesSink sink = new NTriplesSink(file, append)) {
+                sink.add(model);
+            } catch (IOException | RuntimeIOException e) {
+                LOGGER.error("ERROR: Cannot write output file " 
+                        + file.getName() + ": " + e.getMessage());
+            }
+            return;
+        }
+        
+        try (OutputStream outStream = 
+                new BufferedOutputStream(new FileOutputStream(file, append))) {
             RDFDataMgr.write(outStream, model, 
                     getOutputFormat().jenaRDFFormat());
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             // TODO Auto-generated catch block
             e.printStackTrace();
         }        
     }
+    
+    /**
+     * Open an N-Triples output file to which a processor can write triples as
+     * it produces them, rather than building an output model. The caller 
+     * must close the sink. Returns null if the file can't be opened.
+     */
+    protected NTriplesSink openOutputFile(String basename) {
+        File outputFile = new File(getOutputDir(), getOutputFilename(basename));
+        try {
+            return new NTriplesSink(outputFile, false);
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot open output file " 
+                    + outputFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Close an output file opened by openOutputFile(). Most of the output is
+     * written when the sink is closed, so a failure is logged as an error. 
+     * Jena reports write errors as RuntimeIOExceptions. Returns false if the
+     * output could not be written.
+     */
+    protected boolean closeOutputFile(NTriplesSink output, String basename) {
+        try {
+            output.close();
+            return true;
+        } catch (IOException | RuntimeIOException e) {
+            LOGGER.error("ERROR: Cannot write output file " 
+                    + getOutputFilename(basename) + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Close an output file opened by openOutputFile() whose output could not
+     * be completed, and delete it, so that it isn't taken for complete 
+     * output.
+     */
+    protected void discardOutputFile(NTriplesSink output, String basename) {
+        File outputFile = new File(getOutputDir(), getOutputFilename(basename));
+        try {
+            output.close();
+        } catch (IOException | RuntimeIOException e) {
+            // The file is deleted anyway.
+        }
+        if (outputFile.exists() && ! outputFile.delete()) {
+            LOGGER.error("ERROR: Cannot delete incomplete output file " 
+                    + outputFile.getName() + ".");
+        }
+    }
 
     // For development/debugging
     public static void printModel(Model model, Level level, String msg) {
@@ -214,5 +341,33 @@ public abstract class RdfProcessor extends Processor {
     public static String getLocalNameAlphaPrefix() {
         return LOCAL_NAME_ALPHA_PREFIX;
     }
+    
+    /**
+     * Returns the record number in a local name minted by the LC converter:
+     * the first digit string after the alpha prefix; e.g., 102063 for 
+     * n102063instance17. Returns null if the local name has no digits. 
+     * Called for every triple when files are chunked or rebalanced, so the
+     * local name is scanned directly rather than matched.
+     */
+    public static String getRecordNumber(String localName) {
+        int length = localName.length();
+        int start = localName.startsWith(LOCAL_NAME_ALPHA_PREFIX) ? 
+                LOCAL_NAME_ALPHA_PREFIX.length() : 0;
+        while (start < length && ! isDigit(localName.charAt(start))) {
+            start++;
+        }
+        if (start == length) {
+            return null;
+        }
+        int end = start + 1;
+        while (end < length && isDigit(localName.charAt(end))) {
+            end++;
+        }
+        return localName.substring(start, end);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 
 }
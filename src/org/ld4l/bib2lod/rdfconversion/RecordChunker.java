@@ -0,0 +1,142 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Splits the triples of an input file into chunks of whole records as the
+ * file is parsed, so that a file too large to read into memory at once can
+ * be processed one chunk at a time. The record of a triple is given by the
+ * record number in the local name of its subject, as minted by the LC
+ * converter (see RdfProcessor.getRecordNumber()). Triples whose subject has
+ * no record number - blank nodes and resources outside the local namespace -
+ * go with the record being read. A chunk is ended at the first record
+ * boundary after it reaches the chunk size, so a record is split between
+ * chunks only if its triples are not contiguous in the file. Concatenated
+ * LC converter output writes each record's triples together.
+ */
+public class RecordChunker implements StreamRDF {
+
+    // Default minimum number of triples in a chunk, other than the last.
+    public static final int DEFAULT_CHUNK_SIZE = 100000;
+
+    /**
+     * Receives the chunks of a file in turn.
+     */
+    public interface ChunkHandler {
+
+        /**
+         * Returns the destination of the triples of a new chunk.
+         */
+        StreamRDF startChunk();
+
+        /**
+         * Called once all the triples of the chunk have been sent to its
+         * destination. Chunks are numbered from 1.
+         */
+        void endChunk(int chunkNumber);
+    }
+
+    private final String localNamespace;
+    private final int chunkSize;
+    private final ChunkHandler handler;
+
+    private StreamRDF chunk;
+    private int chunkTripleCount;
+    private int chunkCount;
+
+    private String record;
+    // The subject of the last triple and its record number, since a
+    // subject's triples are mostly sent together.
+    private Node lastSubject;
+    private String lastRecord;
+
+    public RecordChunker(String localNamespace, ChunkHandler handler) {
+        this(localNamespace, DEFAULT_CHUNK_SIZE, handler);
+    }
+
+    public RecordChunker(String localNamespace, int chunkSize,
+            ChunkHandler handler) {
+        this.localNamespace = localNamespace;
+        this.chunkSize = chunkSize;
+        this.handler = handler;
+    }
+
+    @Override
+    public void start() { }
+
+    @Override
+    public void triple(Triple triple) {
+
+        String tripleRecord = getRecord(triple.getSubject());
+        if (tripleRecord != null && ! tripleRecord.equals(record)) {
+            if (chunk != null && chunkTripleCount >= chunkSize) {
+                endChunk();
+            }
+            record = tripleRecord;
+        }
+
+        if (chunk == null) {
+            chunk = handler.startChunk();
+            chunk.start();
+            chunkTripleCount = 0;
+        }
+        chunk.triple(triple);
+        chunkTripleCount++;
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void base(String base) { }
+
+    @Override
+    public void prefix(String prefix, String iri) { }
+
+    /**
+     * Ends the last chunk. May be called again, e.g., after a parsing error
+     * that stopped the parser before it finished.
+     */
+    @Override
+    public void finish() {
+        if (chunk != null) {
+            endChunk();
+        }
+    }
+
+    /**
+     * Returns the number of chunks ended so far.
+     */
+    public int chunkCount() {
+        return chunkCount;
+    }
+
+    private void endChunk() {
+        chunk.finish();
+        chunk = null;
+        handler.endChunk(++chunkCount);
+    }
+
+    private String getRecord(Node subject) {
+
+        if (subject.equals(lastSubject)) {
+            return lastRecord;
+        }
+        lastSubject = subject;
+        lastRecord = null;
+        if (subject.isURI()) {
+            String uri = subject.getURI();
+            if (uri.startsWith(localNamespace)) {
+                lastRecord = RdfProcessor.getRecordNumber(
+                        uri.substring(localNamespace.length()));
+            }
+        }
+        return lastRecord;
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.List;
+
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Builds the submodel of statements pertaining to a resource directly from
+ * the indexed triples of the input graph, rather than by executing a SPARQL
+ * CONSTRUCT query for every resource. URI generators and converters
+ * define the shape of the submodel by combining the add methods; e.g., a
+ * CONSTRUCT of
+ *     ?resource ?p1 ?o1 . ?o1 ?p2 ?o2 . ?s ?p3 ?resource
+ * corresponds to addOutgoingWithObjects() followed by addIncoming().
+ */
+public class ResourceSubModel {
+
+    private final Graph inputGraph;
+    private final Graph subGraph;
+    private final Node node;
+
+    public ResourceSubModel(Resource resource) {
+        this(resource, Factory.createDefaultGraph());
+    }
+    
+    /**
+     * Builds the submodel in the specified graph, which should be empty. 
+     * Allows a caller to reuse one graph for the submodels of many resources.
+     */
+    public ResourceSubModel(Resource resource, Graph subGraph) {
+        this.inputGraph = resource.getModel().getGraph();
+        this.subGraph = subGraph;
+        this.node = resource.asNode();
+    }
+
+    public Node node() {
+        return node;
+    }
+
+    /**
+     * Adds the statements in which the resource is the subject. Returns the
+     * statements added.
+     */
+    public List<Triple> addOutgoing() {
+        return addOutgoing(node);
+    }
+
+    /**
+     * Adds the statements in which the specified node is the subject. Returns
+     * the statements added.
+     */
+    public List<Triple> addOutgoing(Node subject) {
+        return add(subject, Node.ANY, Node.ANY);
+    }
+
+    /**
+     * Adds the statements in which the resource is the subject, each followed
+     * by the statements in which its object is the subject.
+     */
+    public void addOutgoingWithObjects() {
+        for (Triple triple : inputGraph.find(node, Node.ANY, Node.ANY)
+                .toList()) {
+            subGraph.add(triple);
+            if (! triple.getObject().isLiteral()) {
+                addOutgoing(triple.getObject());
+            }
+        }
+    }
+
+    /**
+     * Adds the statements in which the resource is the subject, each followed
+     * by the statements of its object if the object has the specified type.
+     */
+    public void addOutgoingWithObjects(Node objectType) {
+        for (Triple triple : inputGraph.find(node, Node.ANY, Node.ANY)
+                .toList()) {
+            subGraph.add(triple);
+            Node object = triple.getObject();
+            if (! object.isLiteral() && hasType(object, objectType)) {
+                addOutgoing(object);
+            }
+        }
+    }
+
+    /**
+     * Adds the statements in which the resource is the object. Returns the
+     * statements added.
+     */
+    public List<Triple> addIncoming() {
+        return add(Node.ANY, Node.ANY, node);
+    }
+
+    /**
+     * Adds the statements with the specified subject and predicate. Returns
+     * the statements added.
+     */
+    public List<Triple> add(Node subject, Node predicate) {
+        return add(subject, predicate, Node.ANY);
+    }
+
+    /**
+     * Adds a statement of the input graph.
+     */
+    public void add(Triple triple) {
+        subGraph.add(triple);
+    }
+
+    /**
+     * Returns the statements of the input graph with the specified subject
+     * and predicate, without adding them.
+     */
+    public List<Triple> find(Node subject, Node predicate) {
+        return inputGraph.find(subject, predicate, Node.ANY).toList();
+    }
+
+    private List<Triple> add(Node subject, Node predicate, Node object) {
+        List<Triple> triples =
+                inputGraph.find(subject, predicate, object).toList();
+        for (Triple triple : triples) {
+            subGraph.add(triple);
+        }
+        return triples;
+    }
+
+    /**
+     * Returns true if the input graph asserts the type of the node.
+     */
+    public boolean hasType(Node node, Node type) {
+        return inputGraph.contains(node, RDF.type.asNode(), type);
+    }
+
+    /**
+     * Returns true if the node is the subject of any statement in the input
+     * graph.
+     */
+    public boolean hasStatements(Node subject) {
+        return inputGraph.contains(subject, Node.ANY, Node.ANY);
+    }
+
+    public Model toModel() {
+        return ModelFactory.createModelForGraph(subGraph);
+    }
+
+}
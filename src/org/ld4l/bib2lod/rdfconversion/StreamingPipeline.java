@@ -0,0 +1,324 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ld4l.bib2lod.Action;
+import org.ld4l.bib2lod.rdfconversion.uniqueuris.KeyHash;
+import org.ld4l.bib2lod.util.Bib2LodStringUtils;
+import org.ld4l.bib2lod.util.TimerUtils;
+
+/**
+ * Applies the selected actions to one input file at a time, passing the
+ * output of each processing stage to the next in memory rather than through
+ * intermediate files. Only the output of the last stage is written to disk,
+ * except that cleaned RDF is parsed from a temporary file, so that a file
+ * isn't held in memory both as text and parsed. Output is the same as when
+ * the actions are run one after another over the whole input directory.
+ */
+public class StreamingPipeline extends RdfProcessor {
+
+    private static final Logger LOGGER =
+            LogManager.getLogger(StreamingPipeline.class);
+
+    // The stages of the pipeline. A stage is null if the corresponding
+    // action has not been selected.
+    private final RdfCleaner rdfCleaner;
+    private final UriGenerator uriGenerator;
+    private final BibframeConverter bibframeConverter;
+    
+    // Size in megabytes above which an input file is processed in chunks of
+    // records, or 0 to read every file into memory at once.
+    private final int maxFileSize;
+
+    public StreamingPipeline(String localNamespace, String inputDir,
+            String mainOutputDir, int threadCount, Set<Action> actions, 
+            String uriIndexDir, int nacoCacheSize, KeyHash keyHash, 
+            String collisionReport, int maxFileSize) {
+        super(localNamespace, inputDir, mainOutputDir, threadCount);
+        this.maxFileSize = maxFileSize;
+
+        // The stages never write their own output, so they don't create
+        // output directories.
+        this.rdfCleaner = actions.contains(Action.CLEAN_RDF) ?
+                new RdfCleaner(localNamespace, inputDir, mainOutputDir) : null;
+        this.uriGenerator = actions.contains(Action.DEDUPE_RESOURCES) ?
+                new UriGenerator(localNamespace, inputDir, mainOutputDir, 1, 
+                        uriIndexDir, nacoCacheSize, keyHash, 
+                        collisionReport, maxFileSize) : null;
+        this.bibframeConverter = actions.contains(Action.CONVERT_BIBFRAME) ?
+                new BibframeConverter(localNamespace, inputDir, mainOutputDir)
+                : null;
+    }
+
+    @Override
+    public String process() {
+
+        Instant processStart = Instant.now();
+        LOGGER.info("START streaming conversion.");
+
+        String outputDir = getOutputDir();
+
+        File[] inputFiles = new File(inputDir).listFiles();
+        int totalFileCount = inputFiles.length;
+
+        // For consistent ordering. Helps locate errors if program exits
+        // unexpectedly.
+        Arrays.sort(inputFiles);
+
+        if (uriGenerator != null) {
+            uriGenerator.openUriIndex();
+        }
+
+        processFiles(inputFiles, (file, fileCount) ->
+                convertFile(file, fileCount, totalFileCount));
+
+        if (uriGenerator != null) {
+            uriGenerator.closeUriIndex();
+            uriGenerator.logNormalizationCache();
+            uriGenerator.writeCollisionReport();
+        }
+
+        LOGGER.info("END streaming conversion in total of "
+                + Bib2LodStringUtils.count(totalFileCount, "input file")
+                + ". Duration: " + TimerUtils.getDuration(processStart) + ".");
+
+        return outputDir;
+    }
+
+    private void convertFile(File file, int fileCount, int totalFileCount) {
+
+        Instant fileStartTime = Instant.now();
+
+        String filename = file.getName();
+
+        // Skip directories and empty files, as RdfCleaner does.
+        if (file.isDirectory()) {
+            LOGGER.trace(
+                    "Skipping " + filename + " because it is a directory.");
+            return;
+        }
+        if (file.length() == 0) {
+            LOGGER.trace("Skipping " + filename + " because it is empty.");
+            return;
+        }
+
+        LOGGER.info("Start streaming conversion of file " + filename
+                + " (file " + fileCount + " of "
+                + Bib2LodStringUtils.count(totalFileCount, "input file")
+                + ").");
+
+        // If cleanup is the only stage, its output is written out just as 
+        // RdfCleaner would write it.
+        if (rdfCleaner != null && uriGenerator == null 
+                && bibframeConverter == null) {
+            cleanFile(file);
+            logEnd(filename, fileCount, totalFileCount, fileStartTime);
+            return;
+        }
+
+        // Write out to same filename as input file.
+        String basename = FilenameUtils.getBaseName(file.toString());
+
+        File inputFile = file;
+        if (rdfCleaner != null) {
+            inputFile = cleanToTempFile(file, basename);
+            if (inputFile == null) {
+                return;
+            }
+        }
+
+        try {
+            if (isOversized(file, maxFileSize)) {
+                convertFileInChunks(file, inputFile, basename);
+
+            } else {
+                PipelineInput input = new PipelineInput();
+                readFile(inputFile.toString(), input.destination());
+                convertInput(input, basename);
+            }
+        } finally {
+            if (inputFile != file) {
+                inputFile.delete();
+            }
+        }
+
+        logEnd(filename, fileCount, totalFileCount, fileStartTime);
+    }
+
+    /*
+     * Write the cleaned RDF of a file to a temporary file in the output 
+     * directory, and return the temporary file. Returns null if the file 
+     * can't be cleaned, since a partly cleaned file isn't converted.
+     */
+    private File cleanToTempFile(File file, String basename) {
+
+        File cleanedFile = null;
+        try {
+            // The prefix hides the file, and keeps it from being taken for 
+            // output if the run is interrupted. The extension gives the 
+            // serialization to the parser.
+            cleanedFile = Files.createTempFile(
+                    Paths.get(getOutputDir()), "." + basename + "_", 
+                    "." + FilenameUtils.getExtension(file.getName()))
+                    .toFile();
+            try (FileChannel output = 
+                    new FileOutputStream(cleanedFile).getChannel()) {
+                rdfCleaner.replaceLinesInFile(file, output);
+            }
+            return cleanedFile;
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot write cleaned RDF of file " 
+                    + file.getName() + " to a temporary file: " 
+                    + e.getMessage() + ". Skipping file.");
+            if (cleanedFile != null) {
+                cleanedFile.delete();
+            }
+            return null;
+        }
+    }
+
+    /*
+     * Process a file too large to read into memory at once in chunks of 
+     * records, reading it from the input file, which is its cleaned copy if
+     * it has been cleaned. Each chunk is written to its own output file, as
+     * UriGenerator writes it.
+     */
+    private void convertFileInChunks(File file, File inputFile, 
+            String basename) {
+
+        LOGGER.info("File " + file.getName() + " is larger than " 
+                + maxFileSize + " MB. Processing in chunks of records.");
+
+        int chunkCount = readFileInChunks(inputFile.toString(), 
+                new RecordChunker.ChunkHandler() {
+
+            private PipelineInput input;
+
+            @Override
+            public StreamRDF startChunk() {
+                input = new PipelineInput();
+                return input.destination();
+            }
+
+            @Override
+            public void endChunk(int chunkNumber) {
+                convertInput(input, getChunkBasename(basename, chunkNumber));
+                input = null;
+            }
+        });
+
+        LOGGER.info("Processed file " + file.getName() + " in " 
+                + Bib2LodStringUtils.count(chunkCount, "chunk") + ".");
+    }
+
+    /*
+     * Pass the input of a file, or of a chunk of a file, through the URI
+     * generation and conversion stages, and write the output to the output
+     * file with the specified basename.
+     */
+    private void convertInput(PipelineInput input, String basename) {
+
+        CompactGraph inputGraph = input.builder.build();
+        Model model = ModelFactory.createModelForGraph(inputGraph);
+
+        // The last stage sends its output directly to the file.
+        NTriplesSink output = openOutputFile(basename);
+        if (output == null) {
+            model.close();
+            return;
+        }
+
+        // If a stage fails, the error is reported by processFiles(). The 
+        // output file is deleted, so that it isn't taken for complete output.
+        boolean converted = false;
+        try {
+            if (uriGenerator != null) {
+                if (bibframeConverter == null) {
+                    uriGenerator.convertModel(
+                            model, input.skolemizer.tempUris(), output);
+                } else {
+                    // Most nodes are unchanged by URI generation, so the 
+                    // output reuses the ids of the input.
+                    CompactGraph.Builder outputBuilder = 
+                            new CompactGraph.Builder(inputGraph.dictionary());
+                    uriGenerator.convertModel(
+                            model, input.skolemizer.tempUris(), outputBuilder);
+                    model.close();
+                    model = ModelFactory.createModelForGraph(
+                            outputBuilder.build());
+                }
+            }
+
+            if (bibframeConverter != null) {
+                bibframeConverter.convertModel(model, output);
+            } else if (uriGenerator == null) {
+                output.add(model);
+            }
+            converted = true;
+        } finally {
+            model.close();
+            if (! converted) {
+                discardOutputFile(output, basename);
+            }
+        }
+
+        closeOutputFile(output, basename);
+    }
+
+    private void cleanFile(File file) {
+
+        File outputFile = new File(getOutputDir(), file.getName());
+        try (FileChannel output = 
+                new FileOutputStream(outputFile).getChannel()) {
+            rdfCleaner.replaceLinesInFile(file, output);
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot write cleaned RDF of file " 
+                    + file.getName() + " to " + outputFile.getName() + ": "
+                    + e.getMessage());
+        }
+    }
+
+    /*
+     * The parsed input of a file, or of a chunk of a file. If URIs are 
+     * generated, blank nodes are replaced with temporary URIs as the RDF is
+     * parsed. The input of each stage is only read, so it is held in a 
+     * CompactGraph.
+     */
+    private class PipelineInput {
+
+        private final CompactGraph.Builder builder = 
+                new CompactGraph.Builder();
+        private final BnodeSkolemizer skolemizer = uriGenerator == null ? 
+                null : new BnodeSkolemizer(builder, localNamespace);
+
+        private StreamRDF destination() {
+            return skolemizer == null ? builder : skolemizer;
+        }
+    }
+
+    private void logEnd(String filename, int fileCount, int totalFileCount,
+            Instant fileStartTime) {
+
+        LOGGER.info("End streaming conversion of file " + filename
+                + " (file " + fileCount + " of "
+                + Bib2LodStringUtils.count(totalFileCount, "input file")
+                + " = "
+                + TimerUtils.percent(fileCount, totalFileCount) + "%). "
+                + "Duration: " + TimerUtils.getDuration(fileStartTime) + ".");
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+
+/**
+ * Selects the type of highest priority among the types of a resource, from
+ * a list of BfTypes in priority order. Each type is ranked by its position 
+ * in the list, and each ontology class of a ranked type maps to a bit at 
+ * that rank, indexed by the class's vocabulary id in NodeDictionary. The 
+ * types of the resources in a graph are collected in one pass over its 
+ * rdf:type statements into a mask per resource, and the lowest bit set in
+ * the mask selects the type. In a CompactGraph the pass works on node ids.
+ */
+class TypeRanking {
+
+    private final BfType[] typesByRank;
+    private final long[] rankBitsByVocabularyId = 
+            new long[NodeDictionary.vocabularySize()];
+    
+    TypeRanking(Collection<BfType> typesInPriorityOrder) {
+        
+        if (typesInPriorityOrder.size() > Long.SIZE) {
+            throw new IllegalArgumentException(
+                    "Cannot rank more than " + Long.SIZE + " types.");
+        }
+        
+        typesByRank = typesInPriorityOrder.toArray(new BfType[0]);
+        Map<BfType, Integer> ranks = new HashMap<BfType, Integer>();
+        for (int rank = 0; rank < typesByRank.length; rank++) {
+            ranks.put(typesByRank[rank], rank);
+        }
+        
+        for (Map.Entry<Resource, BfType> entry : 
+                BfType.typesForOntClasses().entrySet()) {
+            Integer rank = ranks.get(entry.getValue());
+            if (rank != null) {
+                rankBitsByVocabularyId[NodeDictionary.vocabularyId(
+                        entry.getKey().asNode())] = 1L << rank;
+            }
+        }
+    }
+    
+    /**
+     * Returns the masks of the ranked types of the resources in the graph,
+     * in the order the resources are first typed in the graph. Resources 
+     * with no ranked type are omitted.
+     */
+    Map<Node, Long> getTypeMasks(Graph graph) {
+        
+        Map<Node, Long> typeMasks = new LinkedHashMap<Node, Long>();
+        
+        if (graph instanceof CompactGraph) {
+            CompactGraph compactGraph = (CompactGraph) graph;
+            NodeDictionary dictionary = compactGraph.dictionary();
+            compactGraph.forEachWithPredicate(NodeDictionary.RDF_TYPE, 
+                    (subject, type) -> {
+                if (type < rankBitsByVocabularyId.length 
+                        && rankBitsByVocabularyId[type] != 0) {
+                    typeMasks.merge(dictionary.node(subject), 
+                            rankBitsByVocabularyId[type], (a, b) -> a | b);
+                }
+            });
+            return typeMasks;
+        }
+        
+        ExtendedIterator<Triple> typeTriples = 
+                graph.find(Node.ANY, RDF.type.asNode(), Node.ANY);
+        while (typeTriples.hasNext()) {
+            Triple triple = typeTriples.next();
+            int type = NodeDictionary.vocabularyId(triple.getObject());
+            if (type >= 0 && rankBitsByVocabularyId[type] != 0) {
+                typeMasks.merge(triple.getSubject(), 
+                        rankBitsByVocabularyId[type], (a, b) -> a | b);
+            }
+        }
+        return typeMasks;
+    }
+    
+    /**
+     * Returns the type of highest priority in a mask returned by 
+     * getTypeMasks().
+     */
+    BfType getHighestPriorityType(long typeMask) {
+        return typesByRank[Long.numberOfTrailingZeros(typeMask)];
+    }
+
+}
@@ -1,23 +1,28 @@
 package org.ld4l.bib2lod.rdfconversion;
 
 import java.io.File;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.Statement;
-import org.apache.jena.rdf.model.StmtIterator;
-import org.apache.jena.util.ResourceUtils;
-import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.riot.system.StreamOps;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.uniqueuris.BfAuthorityUriGenerator;
@@ -26,8 +31,12 @@ import org.ld4l.bib2lod.rdfconversion.uniqueuris.BfInstanceUriGenerator;
 import org.ld4l.bib2lod.rdfconversion.uniqueuris.BfResourceUriGenerator;
 import org.ld4l.bib2lod.rdfconversion.uniqueuris.BfTopicUriGenerator;
 import org.ld4l.bib2lod.rdfconversion.uniqueuris.BfWorkUriGenerator;
+import org.ld4l.bib2lod.rdfconversion.uniqueuris.KeyCollisionTracker;
+import org.ld4l.bib2lod.rdfconversion.uniqueuris.KeyHash;
 import org.ld4l.bib2lod.rdfconversion.uniqueuris.MadsAuthorityUriGenerator;
+import org.ld4l.bib2lod.rdfconversion.uniqueuris.UriIndex;
 import org.ld4l.bib2lod.util.Bib2LodStringUtils;
+import org.ld4l.bib2lod.util.LruCache;
 import org.ld4l.bib2lod.util.TimerUtils;
 
 public class UriGenerator extends RdfProcessor {
@@ -35,12 +44,6 @@ public class UriGenerator extends RdfProcessor {
     private static final Logger LOGGER = 
             LogManager.getLogger(UriGenerator.class);
 
-    private static final Map<Resource, BfType> BF_TYPES_FOR_ONT_CLASSES =
-            BfType.typesForOntClasses();
-
-    private static Map<BfType, BfResourceUriGenerator> uriGenerators =
-            new HashMap<BfType, BfResourceUriGenerator>();
-    
     private static final Map<BfType, Class<?>> TYPES_TO_URI_GENERATORS =
             // Order is sometimes crucial; e.g., Topics are Authorities, but
             // must be sent to the BfTopicUriGenerator. A Person is an Agent
@@ -124,15 +127,76 @@ public class UriGenerator extends RdfProcessor {
                 BfType.BF_RESOURCE, BfResourceUriGenerator.class);
  
     }
+    
+    private static final TypeRanking GENERATOR_TYPE_RANKING = 
+            new TypeRanking(TYPES_TO_URI_GENERATORS.keySet());
 
+    // Each worker thread gets its own set of URI generators, since the 
+    // generators hold the state of the resource currently being processed.
+    private final ThreadLocal<Map<BfType, BfResourceUriGenerator>> 
+            uriGenerators = ThreadLocal.withInitial(this::createUriGenerators);
+    
+    // Directory of the persistent URI index, or null if no index is used.
+    private final String uriIndexDir;
+    private UriIndex uriIndex;
+    
+    // Default maximum number of NACO-normalized strings cached.
+    public static final int DEFAULT_NACO_CACHE_SIZE = 100000;
+    
+    // Cache of NACO-normalized strings, shared by all threads. Null if 
+    // normalized strings are not cached.
+    private final LruCache<String, String> normalizationCache;
+    
+    // Hash function applied to unique keys.
+    private final KeyHash keyHash;
+    
+    // File the key collision report is written to, or null if collisions
+    // are not tracked.
+    private final String collisionReport;
+    private KeyCollisionTracker collisionTracker;
+    
+    // Size in megabytes above which an input file is processed in chunks of
+    // records, or 0 to read every file into memory at once.
+    private final int maxFileSize;
+    
     public UriGenerator(String localNamespace, String inputDir, 
             String mainOutputDir) {           
-        super(localNamespace, inputDir, mainOutputDir);
-        createUriGenerators();
+        this(localNamespace, inputDir, mainOutputDir, 1, null, 
+                DEFAULT_NACO_CACHE_SIZE, KeyHash.MURMUR64, null, 
+                DEFAULT_MAX_FILE_SIZE);
+    }
+    
+    /**
+     * @param uriIndexDir - the directory of the persistent URI index, or null
+     * @param nacoCacheSize - the maximum number of NACO-normalized strings 
+     * cached, or 0 not to cache them
+     * @param keyHash - the hash function applied to unique keys
+     * @param collisionReport - the file to report key collisions in, or null
+     * not to track collisions
+     * @param maxFileSize - the size in megabytes above which an input file 
+     * is processed in chunks of records, or 0 for no maximum
+     */
+    public UriGenerator(String localNamespace, String inputDir, 
+            String mainOutputDir, int threadCount, String uriIndexDir, 
+            int nacoCacheSize, KeyHash keyHash, String collisionReport,
+            int maxFileSize) {           
+        super(localNamespace, inputDir, mainOutputDir, threadCount);
+        this.maxFileSize = maxFileSize;
+        this.uriIndexDir = uriIndexDir;
+        this.normalizationCache = nacoCacheSize > 0 ? 
+                new LruCache<String, String>(nacoCacheSize) : null;
+        this.keyHash = keyHash;
+        this.collisionReport = collisionReport;
+        if (collisionReport != null) {
+            collisionTracker = new KeyCollisionTracker();
+        }
     }
 
-    private void createUriGenerators() {
+    private Map<BfType, BfResourceUriGenerator> createUriGenerators() {
 
+        Map<BfType, BfResourceUriGenerator> uriGenerators = 
+                new HashMap<BfType, BfResourceUriGenerator>();
+        
         Map<Class<?>, BfResourceUriGenerator> instantiatedClasses = 
                 new HashMap<Class<?>, BfResourceUriGenerator>();
         
@@ -156,7 +220,7 @@ public class UriGenerator extends RdfProcessor {
                     LOGGER.warn("Can't instantiate class " 
                             + generatorClass.getName());
                     e.printStackTrace();
-                    return;
+                    return uriGenerators;
                 }   
                 
                 instantiatedClasses.put(generatorClass, uriGenerator);
@@ -167,8 +231,21 @@ public class UriGenerator extends RdfProcessor {
                 uriGenerator = instantiatedClasses.get(generatorClass);
             }
             
+            uriGenerator.setNormalizationCache(normalizationCache);
+            uriGenerator.setKeyHash(keyHash);
+            uriGenerator.setCollisionTracker(collisionTracker);
             uriGenerators.put(bfType, uriGenerator);
         }
+        
+        return uriGenerators;
+    }
+    
+    /**
+     * Returns the current thread's URI generator for the type, or null if 
+     * the type has none. Used by the benchmarks.
+     */
+    BfResourceUriGenerator getUriGenerator(BfType bfType) {
+        return uriGenerators.get().get(bfType);
     }
     
     @Override
@@ -187,34 +264,16 @@ public class UriGenerator extends RdfProcessor {
         // files).
         Arrays.sort(inputFiles);
 
-        int fileCount = 0;
-        for ( File file : inputFiles ) {
-            fileCount++;
-            
-            Instant fileStartTime = Instant.now();
-
-            String filename = file.getName();
-            
-            LOGGER.info("Start unique URI generation in file " + filename
-                    + " (file " + fileCount + " of "
-                    + Bib2LodStringUtils.count(totalFileCount, "input file")
-                    + ").");
-            
-            Model outputModel = convertFile(file);
-            
-            // Write out to same filename as input file
-            String basename = FilenameUtils.getBaseName(file.toString());
-            writeModelToFile(outputModel, basename);
-            outputModel.close();
-            
-            LOGGER.info("End unique URI generation in file " + filename
-                    + " (file " + fileCount + " of " 
-                    + Bib2LodStringUtils.count(totalFileCount, "input file")
-                    + " = " 
-                    + TimerUtils.percent(fileCount, totalFileCount) + "%). "
-                    + "Duration: " 
-                    + TimerUtils.getDuration(fileStartTime) + ".");
-        }   
+        openUriIndex();
+        
+        processFiles(inputFiles, (file, fileCount) -> 
+                convertFile(file, fileCount, totalFileCount));
+        
+        closeUriIndex();
+        
+        logNormalizationCache();
+        
+        writeCollisionReport();
        
         LOGGER.info("END URI generation in total of "       
                 + Bib2LodStringUtils.count(totalFileCount, "input file")
@@ -223,106 +282,311 @@ public class UriGenerator extends RdfProcessor {
         return outputDir;
     }
     
-    private Model convertFile(File inputFile) {
+    /**
+     * Open the persistent URI index, if one has been specified. If the index
+     * can't be opened, unique URIs are computed without it.
+     */
+    void openUriIndex() {
         
-        Model inputModel = readModelFromFile(inputFile);    
-        Model outputModel = ModelFactory.createDefaultModel();
+        if (uriIndexDir == null) {
+            return;
+        }
         
-        // Maps a local URI generated by LC Bibframe converter to a unique
-        // URI generated from uniquely identifying data. This will result in
-        // reconciliation of entities across records within a single catalog.
-        Map<String, String> uniqueUris = new HashMap<String, String>();
-
-        List<Statement> statements = inputModel.listStatements().toList();
-        for (Statement statement : statements) {
-            generateUniqueUris(statement, uniqueUris, outputModel);
-        }  
+        try {
+            uriIndex = new UriIndex(uriIndexDir, localNamespace, keyHash);
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot open URI index: " + e.getMessage() 
+                    + " Continuing without the index.");
+        }
+    }
+    
+    void closeUriIndex() {
         
-        inputModel.close();
-
-        return outputModel;
+        if (uriIndex == null) {
+            return;
+        }
+        
+        LOGGER.info("URI index: " 
+                + Bib2LodStringUtils.count(uriIndex.hits(), "hit") + ", "
+                + Bib2LodStringUtils.count(uriIndex.misses(), "miss", "misses")
+                + "; " + Bib2LodStringUtils.count(uriIndex.size(), "entry", "entries") 
+                + " in total.");
+        uriIndex.close();
+        uriIndex = null;
     }
+    
+    void logNormalizationCache() {
+        
+        if (normalizationCache == null) {
+            return;
+        }
+        
+        LOGGER.info("NACO normalization cache: " 
+                + Bib2LodStringUtils.count(normalizationCache.hits(), "hit") 
+                + ", " + Bib2LodStringUtils.count(
+                        normalizationCache.misses(), "miss", "misses")
+                + "; " + Bib2LodStringUtils.count(
+                        normalizationCache.size(), "entry", "entries") 
+                + " cached.");
+    }
+    
+    /**
+     * Write the key collision report, if collisions are tracked, and release
+     * the collision tracker.
+     */
+    void writeCollisionReport() {
+        
+        if (collisionTracker == null) {
+            return;
+        }
+        
+        LOGGER.info("Key collisions: " + Bib2LodStringUtils.count(
+                collisionTracker.collisionCount(), "colliding key") 
+                + " among " + Bib2LodStringUtils.count(
+                        collisionTracker.size(), "distinct hash value") 
+                + ".");
+        try {
+            collisionTracker.writeReport(new File(collisionReport));
+            LOGGER.info("Wrote key collision report to " + collisionReport 
+                    + ".");
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot write key collision report " 
+                    + collisionReport + ": " + e.getMessage());
+        }
+        collisionTracker.close();
+        collisionTracker = null;
+    }
+    
+    private void convertFile(File file, int fileCount, int totalFileCount) {
+        
+        Instant fileStartTime = Instant.now();
 
-    private void generateUniqueUris(Statement statement,  
-            Map<String, String> uniqueUris, Model outputModel) { 
-
-        Resource subject = statement.getSubject();
-        String newSubjectUri = getUniqueUri(subject, uniqueUris, outputModel);
-        Resource newSubject = outputModel.createResource(newSubjectUri);
-        
-        RDFNode object = statement.getObject();
-        RDFNode newObject;
-        if (object.isLiteral()) {
-            newObject = object;
+        String filename = file.getName();
+        
+        LOGGER.info("Start unique URI generation in file " + filename
+                + " (file " + fileCount + " of "
+                + Bib2LodStringUtils.count(totalFileCount, "input file")
+                + ").");
+        
+        // Write out to same filename as input file, statement by statement
+        String basename = FilenameUtils.getBaseName(file.toString());
+        
+        if (isOversized(file, maxFileSize)) {
+            convertFileInChunks(file, basename);
         } else {
-            String newObjectUri = 
-                    getUniqueUri(object.asResource(), uniqueUris, outputModel);
-            newObject = outputModel.createResource(newObjectUri);
+            CompactGraph.Builder builder = new CompactGraph.Builder();
+            BnodeSkolemizer skolemizer = 
+                    new BnodeSkolemizer(builder, localNamespace);
+            readFile(file.toString(), skolemizer);
+            convertGraph(builder.build(), skolemizer.tempUris(), basename);
         }
-                                           
-        outputModel.add(
-                newSubject, statement.getPredicate(), newObject);
+        
+        LOGGER.info("End unique URI generation in file " + filename
+                + " (file " + fileCount + " of " 
+                + Bib2LodStringUtils.count(totalFileCount, "input file")
+                + " = " 
+                + TimerUtils.percent(fileCount, totalFileCount) + "%). "
+                + "Duration: " 
+                + TimerUtils.getDuration(fileStartTime) + ".");
     }
-
+    
     /*
-     * The URI returned by this method serves to dedupe the same resource 
-     * across records in a catalog, based on type-specific identifying data.
+     * Process a file too large to read into memory at once in chunks of 
+     * records. Each chunk is written to its own output file, so that the 
+     * next processing stage can read it into memory.
      */
-    private String getUniqueUri(Resource resource, 
-            Map<String, String> uniqueUris, Model outputModel) {
-
-        // Assign a temporary URI to a blank node, so that remaining processing
-        // can be the same as for a URI resource. This method renames the
-        // resource throughout the model (here, the input model).
-        if (resource.isAnon()) {
-            resource = assignTempLocalNameToBnode(resource);
-            // Two reasons we may want this: (1) Prefix a string to the unique
-            // local name to avoid collisions with related resources; for 
-            // example, a madsrdf:Authority and its related resource are 
-            // initially assigned the same unique key, since they are derived 
-            // from identical data. Currently we prefix a string only for
-            // authorities, but possibly we need to do this for any blank nodes.
-            // (2) Pass to getUniqueKey() since this information may be used to
-            // determine how to get the unique key. 
-            // isBnode = true;    
+    private void convertFileInChunks(File file, String basename) {
+        
+        LOGGER.info("File " + file.getName() + " is larger than " 
+                + maxFileSize + " MB. Processing in chunks of records.");
+        
+        int chunkCount = readFileInChunks(file.toString(), 
+                new RecordChunker.ChunkHandler() {
             
-        } else if (! resource.getNameSpace().equals(localNamespace)) {
-            // Don't modify URIs in an external namespace
-            return resource.getURI();
+            private CompactGraph.Builder builder;
+            private BnodeSkolemizer skolemizer;
+            
+            @Override
+            public StreamRDF startChunk() {
+                builder = new CompactGraph.Builder();
+                skolemizer = new BnodeSkolemizer(builder, localNamespace);
+                return skolemizer;
+            }
+            
+            @Override
+            public void endChunk(int chunkNumber) {
+                convertGraph(builder.build(), skolemizer.tempUris(), 
+                        getChunkBasename(basename, chunkNumber));
+                builder = null;
+                skolemizer = null;
+            }
+        });
+        
+        LOGGER.info("Processed file " + file.getName() + " in " 
+                + Bib2LodStringUtils.count(chunkCount, "chunk") + ".");
+    }
+    
+    private void convertGraph(CompactGraph inputGraph, Set<Node> tempUris,
+            String basename) {
+        
+        NTriplesSink output = openOutputFile(basename);
+        if (output == null) {
+            return;
         }
         
-        String uri = resource.getURI();
-        String uniqueUri;
- 
-        // If we've encountered this URI, return the stored value from the map.
-        if (uniqueUris.containsKey(uri)) {
-            uniqueUri = uniqueUris.get(uri);
-            LOGGER.debug("Reusing unique URI " + uniqueUri 
-                    + " previously generated for resource " 
-                    + resource.getURI());
-
-        } else {
-            // Otherwise, compute a new value.
-            uniqueUri = getNewUniqueUri(resource, outputModel);
-            LOGGER.debug("Generated new unique URI " + uniqueUri 
-                    + " for resource " + uri);
-
-            // Add to the map so the value can be reused for other resources in
-            // the same record without having to recompute.
-            uniqueUris.put(uri, uniqueUri);
+        Model inputModel = ModelFactory.createModelForGraph(inputGraph);
+        convertModel(inputModel, tempUris, output);
+        inputModel.close();
+        
+        closeOutputFile(output, basename);
+    }
+    
+    /**
+     * Send the statements of the input model to the output stream, with the 
+     * resources assigned unique URIs. The input model is copied first if it
+     * contains blank nodes.
+     */
+    void convertModel(Model inputModel, StreamRDF output) {
+        
+        Model model = ModelFactory.createDefaultModel();
+        BnodeSkolemizer skolemizer = new BnodeSkolemizer(model, localNamespace);
+        skolemizer.add(inputModel);
+        convertModel(model, skolemizer.tempUris(), output);
+        model.close();
+    }
+    
+    /**
+     * Send the statements of the input model to the output stream, with the 
+     * resources assigned unique URIs. Blank nodes must have been replaced 
+     * with temporary URIs by a BnodeSkolemizer.
+     * @param tempUris - the temporary URIs of blank nodes
+     */
+    void convertModel(Model inputModel, Set<Node> tempUris, 
+            StreamRDF output) {
+        
+        Graph inputGraph = inputModel.getGraph();
+        
+        // Maps a local URI generated by LC Bibframe converter to a unique
+        // URI generated from uniquely identifying data. This will result in
+        // reconciliation of entities across records within a single catalog.
+        // Resources in an external namespace are not mapped.
+        Map<Node, Node> uniqueUris = getUniqueUris(inputModel, tempUris, 
+                output);
+        
+        // Reconciliation maps different input statements to the same output
+        // statement, so keep track of the statements written. Cheaper than 
+        // collecting them in an output model.
+        Set<Triple> written = new HashSet<Triple>();
+
+        ExtendedIterator<Triple> triples = 
+                inputGraph.find(Node.ANY, Node.ANY, Node.ANY);
+        while (triples.hasNext()) {
+            Triple triple = triples.next();
+            Node subject = triple.getSubject();
+            Node object = triple.getObject();
+            Node newSubject = uniqueUris.getOrDefault(subject, subject);
+            Node newObject = object.isLiteral() ? 
+                    object : uniqueUris.getOrDefault(object, object);
+            if (newSubject != subject || newObject != object) {
+                triple = Triple.create(
+                        newSubject, triple.getPredicate(), newObject);
+            }
+            if (written.add(triple)) {
+                output.triple(triple);
+            }
         }
-              
-        return uniqueUri;
+    }
+    
+    /*
+     * Compute the unique URI of each distinct local resource in the model
+     * once. The resources are grouped by the type that selects their URI 
+     * generator, and the groups processed in the order the generators are 
+     * selected, so that each generator processes its resources in one run.
+     * The URIs returned serve to dedupe the same resource across records in 
+     * a catalog, based on type-specific identifying data.
+     */
+    private Map<Node, Node> getUniqueUris(Model inputModel, 
+            Set<Node> tempUris, StreamRDF output) {
         
+        Map<BfType, List<Resource>> resourcesByType = 
+                new LinkedHashMap<BfType, List<Resource>>();
+        for (BfType bfType : TYPES_TO_URI_GENERATORS.keySet()) {
+            resourcesByType.put(bfType, new ArrayList<Resource>());
+        }
+        
+        Graph inputGraph = inputModel.getGraph();
+        Map<Node, Long> typeMasks = 
+                GENERATOR_TYPE_RANKING.getTypeMasks(inputGraph);
+        
+        Set<Node> seen = new HashSet<Node>();
+        ExtendedIterator<Triple> triples = 
+                inputGraph.find(Node.ANY, Node.ANY, Node.ANY);
+        while (triples.hasNext()) {
+            Triple triple = triples.next();
+            addLocalResource(triple.getSubject(), inputModel, tempUris, 
+                    typeMasks, seen, resourcesByType);
+            addLocalResource(triple.getObject(), inputModel, tempUris, 
+                    typeMasks, seen, resourcesByType);
+        }
+        
+        Map<Node, Node> uniqueUris = new HashMap<Node, Node>();
+        for (Map.Entry<BfType, List<Resource>> entry : 
+                resourcesByType.entrySet()) {
+            BfType bfType = entry.getKey();
+            for (Resource resource : entry.getValue()) {
+                // Blank nodes have been assigned temporary URIs when parsed, 
+                // so that remaining processing can be the same as for a URI 
+                // resource.
+                boolean isBnode = tempUris.contains(resource.asNode());
+                String uniqueUri = 
+                        getNewUniqueUri(resource, bfType, isBnode, output);
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Generated new unique URI " + uniqueUri 
+                            + " for resource " + resource.getURI());
+                }
+                uniqueUris.put(resource.asNode(), 
+                        NodeFactory.createURI(uniqueUri));
+            }
+        }
+        
+        return uniqueUris;
     }
- 
-    private String getNewUniqueUri(Resource resource, Model outputModel) {
+    
+    private void addLocalResource(Node node, Model inputModel, 
+            Set<Node> tempUris, Map<Node, Long> typeMasks, Set<Node> seen, 
+            Map<BfType, List<Resource>> resourcesByType) {
+        
+        if (node.isLiteral() || ! seen.add(node)) {
+            return;
+        }
         
-        BfType bfType = getTypeForGenerator(resource);
+        // Don't modify URIs in an external namespace
+        if (! tempUris.contains(node) 
+                && ! node.getNameSpace().equals(localNamespace)) {
+            return;
+        }
+        
+        resourcesByType.get(getTypeForGenerator(node, typeMasks))
+                .add(inputModel.wrapAsResource(node));
+    }
+ 
+    private String getNewUniqueUri(Resource resource, BfType bfType, 
+            boolean isBnode, StreamRDF output) {
         
-        BfResourceUriGenerator uriGenerator = uriGenerators.get(bfType);
+        BfResourceUriGenerator uriGenerator = uriGenerators.get().get(bfType);
 
-        String uniqueUri = uriGenerator.getUniqueUri(resource, bfType);
+        // The temporary URIs of blank nodes differ from one run to the next, 
+        // so only URIs minted by the LC converter are indexed.
+        boolean useIndex = uriIndex != null && ! isBnode;
+        
+        String uniqueUri = useIndex ? uriIndex.get(resource.getURI()) : null;
+        
+        if (uniqueUri == null) {
+            uniqueUri = uriGenerator.getUniqueUri(resource, bfType);
+            if (useIndex) {
+                uriIndex.put(resource.getURI(), uniqueUri);
+            }
+        }
         
         // SIDE EFFECT
         // For instances, we need to get the local identifier, which the
@@ -336,62 +600,23 @@ public class UriGenerator extends RdfProcessor {
         if (uriGenerator instanceof BfInstanceUriGenerator) {
             Model model = ((BfInstanceUriGenerator) uriGenerator)   
                     .getLocalIdentifier(resource, uniqueUri);
-            outputModel.add(model); 
+            StreamOps.sendTriplesToStream(model.getGraph(), output); 
             model.close();
         }
         
         return uniqueUri;
     }
 
-    /* 
-     * Assign a temporary URI to a blank node, so further processing can be the
-     * same as for a URI resource.
-     */
-    private Resource assignTempLocalNameToBnode(Resource bnode) {
-        
-        // Same as: resource.asNode().getBlankNodeId().toString()
-        // and: resource.getId().getBlankNodeId().toString()
-        String tempLocalName = "n" + bnode.getId().toString();
-        
-        // LOGGER.debug("Got bnode id " + localname);
-        // Don't use a randomly-generated temporary local name, else we can't
-        // use the uniqueUris map to find previously processed resource and
-        // reuse that URI.
-        String tempUri = localNamespace + tempLocalName;
-        bnode = ResourceUtils.renameResource(bnode, tempUri);
-        // LOGGER.debug(resource.isURIResource() ? 
-        //       "Resource is now a URI resource" : 
-        //       "Resource is still a blank node");
-
-        return bnode;
-    }
-
     // Get the type of the entity that is used to determine the URI generator
-    // type.
-    private BfType getTypeForGenerator(Resource resource) {
+    // type: the type of highest priority among its types.
+    private static BfType getTypeForGenerator(Node node, 
+            Map<Node, Long> typeMasks) {
 
-        // Get the BfTypes for this resource
-        StmtIterator typeStmts = resource.listProperties(RDF.type);
-        
-        if (!typeStmts.hasNext()) {
+        Long typeMask = typeMasks.get(node);
+        if (typeMask == null) {
             return BfType.BF_RESOURCE;
         }
-
-        List<BfType> types = new ArrayList<BfType>();
-        
-        while (typeStmts.hasNext()) {
-            Resource type = typeStmts.nextStatement().getResource();
-            types.add(BF_TYPES_FOR_ONT_CLASSES.get(type));
-        }
-                
-        for ( BfType bfType : TYPES_TO_URI_GENERATORS.keySet()) {
-            if (types.contains(bfType)) {
-                return bfType;
-            }
-        }
-        
-        return BfType.BF_RESOURCE;      
-        
+        return GENERATOR_TYPE_RANKING.getHighestPriorityType(typeMask);
     }
 
 }
\ No newline at end of file
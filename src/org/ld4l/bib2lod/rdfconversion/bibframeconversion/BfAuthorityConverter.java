@@ -3,7 +3,7 @@ package org.ld4l.bib2lod.rdfconversion.bibframeconversion;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.jena.query.ParameterizedSparqlString;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
@@ -11,6 +11,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.Ld4lProperty;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 
 public class BfAuthorityConverter extends BfResourceConverter {
 
@@ -22,38 +23,27 @@ public class BfAuthorityConverter extends BfResourceConverter {
     static {
         PROPERTY_MAP.put(BfProperty.BF_LABEL, Ld4lProperty.NAME);
     }
-    
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o1 . "
-                    + " ?o1 ?p2 ?o2 . "
-                    + " ?s ?p3 ?resource . " 
-                    + "} WHERE { { "  
-                    + "?resource ?p1 ?o1 . "
-                    + "OPTIONAL { ?o1 ?p2 ?o2 . } "
-                    + "} UNION { " 
-                    + "?s ?p3 ?resource . "
-                    + "} } ");
-    
+        
     
     public BfAuthorityConverter(String localNamespace) {
         super(localNamespace);
     }
 
+    // Submodel includes the statements of the resource's objects as well as
+    // those of the resource.
     @Override
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        return RESOURCE_SUBMODEL_PSS;
+    protected Model getResourceSubModel(Resource resource) {
+        ResourceSubModel subModel = newResourceSubModel(resource);
+        subModel.addOutgoingWithObjects();
+        subModel.addIncoming();
+        return subModel.toModel();
     }
     
     @Override
-    protected Map<Property, Property> getPropertyMap() {
-        // WRONG - alters map returned by BfProperty.propertyMap()
-        // Map<Property, Property> PROPERTY_MAP = BfProperty.propertyMap();      
-        // PROPERTY_MAP.putAll(getPropertyMap());
-        Map<Property, Property> map = new HashMap<Property, Property>();
-        
+    protected Map<Property, Property> buildPropertyMap() {
+
         // Get default mapping from Bibframe to LD4L properties
-        map.putAll(BfProperty.propertyMap());
+        Map<Property, Property> map = super.buildPropertyMap();
         
         // These properties have a non-default conversion for bf:Authorities.
         map.putAll(
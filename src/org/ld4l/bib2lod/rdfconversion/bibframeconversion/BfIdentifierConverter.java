@@ -8,7 +8,8 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.jena.query.ParameterizedSparqlString;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.NodeIterator;
@@ -27,6 +28,7 @@ import org.ld4l.bib2lod.rdfconversion.BfType;
 import org.ld4l.bib2lod.rdfconversion.Ld4lProperty;
 import org.ld4l.bib2lod.rdfconversion.Ld4lType;
 import org.ld4l.bib2lod.rdfconversion.RdfProcessor;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 
 public class BfIdentifierConverter extends BfResourceConverter {
 
@@ -113,26 +115,6 @@ public class BfIdentifierConverter extends BfResourceConverter {
         IDENTIFIER_PREFIXES.put("ocn", Ld4lType.OCLC_IDENTIFIER);
     }
 
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o . "
-                    + "?s ?p2 ?resource . "         
-                    + "?s ?local ?id . "
-                    + "?id ?ip ?io . "
-                    + "} WHERE {  { "                                                      
-                    + "?resource ?p1 ?o . "
-                    + "} UNION { "
-                    + "?s ?p2 ?resource . "
-                    + " OPTIONAL { "
-                    + "?s ?local ?id . "
-                    + "?id ?ip ?io . " 
-                    + "FILTER (?local = " + BfProperty.BF_LOCAL.sparqlUri() 
-                    + ") "
-                    + "FILTER EXISTS { ?s a " 
-                    + BfType.BF_INSTANCE.sparqlUri() + " } "
-                    + "} "  // end OPTIONAL
-                    + "} } ");
-
     private Resource relatedResource;
     private Property linkingProperty;
     
@@ -140,10 +122,30 @@ public class BfIdentifierConverter extends BfResourceConverter {
         super(localNamespace);
     }
     
-    @Override 
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        LOGGER.debug(RESOURCE_SUBMODEL_PSS.toString());
-        return RESOURCE_SUBMODEL_PSS;
+    // Submodel includes the local identifiers of an Instance that has the
+    // Identifier as an object.
+    @Override
+    protected Model getResourceSubModel(Resource resource) {
+        ResourceSubModel subModel = newResourceSubModel(resource);
+        subModel.addOutgoing();
+        Node bfLocal = BfProperty.BF_LOCAL.property().asNode();
+        Node bfInstance = BfType.BF_INSTANCE.type().asNode();
+        for (Triple triple : subModel.addIncoming()) {
+            Node relatedNode = triple.getSubject();
+            if (! subModel.hasType(relatedNode, bfInstance)) {
+                continue;
+            }
+            // Include the Instance's local identifiers along with their
+            // statements.
+            for (Triple local : subModel.find(relatedNode, bfLocal)) {
+                Node id = local.getObject();
+                if (subModel.hasStatements(id)) {
+                    subModel.add(local);
+                    subModel.addOutgoing(id);
+                }
+            }
+        }
+        return subModel.toModel();
     }
   
     @Override
@@ -294,15 +294,11 @@ public class BfInstanceConverter extends BfResourceConverter {
         
     }
     
-    protected Map<Property, Property> getPropertyMap() {
-        
-        // WRONG - alters map returned by BfProperty.propertyMap()
-        // Map<Property, Property> propertyMap = BfProperty.propertyMap();      
-        // propertyMap.putAll(getPropertyMap());
-        Map<Property, Property> propertyMap = new HashMap<Property, Property>();
+    @Override
+    protected Map<Property, Property> buildPropertyMap() {
         
         // Get default mapping from Bibframe to LD4L properties
-        propertyMap.putAll(BfProperty.propertyMap());
+        Map<Property, Property> propertyMap = super.buildPropertyMap();
         
         // The :instance bf:systemNumber :id statement should be removed when
         // :id is a WorldCat id, but retained otherwise. The easiest way to do
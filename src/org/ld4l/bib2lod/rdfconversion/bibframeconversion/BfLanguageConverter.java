@@ -1,11 +1,8 @@
 package org.ld4l.bib2lod.rdfconversion.bibframeconversion;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
+import java.util.List;
+
 import org.apache.jena.query.QuerySolution;
-import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
@@ -15,6 +12,7 @@ import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.Ld4lProperty;
 import org.ld4l.bib2lod.rdfconversion.Ld4lType;
+import org.ld4l.bib2lod.rdfconversion.QueryTemplate;
 import org.ld4l.bib2lod.rdfconversion.RdfProcessor;
 
 public class BfLanguageConverter extends BfResourceConverter {
@@ -23,8 +21,8 @@ public class BfLanguageConverter extends BfResourceConverter {
             LogManager.getLogger(BfLanguageConverter.class);
     
     
-    private static final ParameterizedSparqlString langOfPartPss = 
-            new ParameterizedSparqlString(
+    private static final QueryTemplate LANG_OF_PART_QUERY = 
+            new QueryTemplate(
                     "SELECT ?work ?langResource ?langLit "
                     // Not dealing with bf:resourcePart for now. See notes
                     // below.
@@ -93,18 +91,11 @@ public class BfLanguageConverter extends BfResourceConverter {
 
     private void convertLanguageOfPart() {
         
-        langOfPartPss.setIri("lang", subject.getURI());
+        List<QuerySolution> results = LANG_OF_PART_QUERY.select(
+                subject.getModel(), "lang", subject);
 
-        LOGGER.debug(langOfPartPss.toString());
-        Query query = langOfPartPss.asQuery();
-        LOGGER.debug(query.toString());
-        QueryExecution qexec = QueryExecutionFactory.create(
-                query, subject.getModel());
-        ResultSet results =  qexec.execSelect();
+        for (QuerySolution soln : results) {
 
-        while (results.hasNext()) {
-            
-            QuerySolution soln = results.next();
             Resource work = soln.getResource("work");
             
             // Create a new work which is part of the original work. The new
@@ -147,8 +138,6 @@ public class BfLanguageConverter extends BfResourceConverter {
             // to further specify the hasPart relationship between the original
             // work and the new work.
         }
-        
-        qexec.close();        
     }
  
 }
@@ -5,19 +5,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
 import org.ld4l.bib2lod.rdfconversion.Ld4lType;
+import org.ld4l.bib2lod.rdfconversion.QueryTemplate;
 
 public class BfMeetingConverter extends BfAuthorityConverter {
 
@@ -32,8 +28,8 @@ public class BfMeetingConverter extends BfAuthorityConverter {
         PROPERTIES_TO_RETRACT.add(BfProperty.BF_HAS_AUTHORITY);
     }
     
-    private static final ParameterizedSparqlString ASK_PSS = 
-            new ParameterizedSparqlString(
+    private static final QueryTemplate CONFERENCE_NAME_QUERY = 
+            new QueryTemplate(
                     "ASK { "
                     + "?meeting " + BfProperty.BF_HAS_AUTHORITY.sparqlUri() 
                     + " " 
@@ -75,30 +71,22 @@ public class BfMeetingConverter extends BfAuthorityConverter {
       
     private void convertConferenceName() {
 
-        ASK_PSS.setIri("meeting", subject.getURI());
-        Query query = ASK_PSS.asQuery();
-        LOGGER.debug(query.toString());
-        QueryExecution qexec = 
-                QueryExecutionFactory.create(query, subject.getModel());
-        Boolean isConfName = qexec.execAsk();
+        boolean isConfName = CONFERENCE_NAME_QUERY.ask(
+                subject.getModel(), "meeting", subject);
         if (isConfName) {
                 outputModel.add(
                         subject, RDF.type, Ld4lType.CONFERENCE.type());
         }
-        
-        qexec.close();        
     }
     
     
     @Override
-    protected Map<Property, Property> getPropertyMap() {
-        // WRONG - alters map returned by BfProperty.propertyMap()
-        // Map<Property, Property> propertyMap = BfProperty.propertyMap();      
-        // propertyMap.putAll(getPropertyMap());
-        Map<Property, Property> propertyMap = new HashMap<Property, Property>();
-        
-        // Get default mapping from Bibframe to LD4L properties
-        propertyMap.putAll(BfProperty.propertyMap());
+    protected Map<Property, Property> buildPropertyMap() {
+
+        // Get default mapping from Bibframe to LD4L properties, rather than 
+        // the mapping for bf:Authorities.
+        Map<Property, Property> propertyMap = 
+                new HashMap<Property, Property>(BfProperty.propertyMap());
         
         // For Meetings, these properties are dropped rather than converted.
         propertyMap.keySet().removeAll(
@@ -107,10 +95,6 @@ public class BfMeetingConverter extends BfAuthorityConverter {
         return propertyMap;
     }
     
-    public List<Resource> getResourcesToRemove() {
-        return resourcesToRemove;
-    }
-    
 //    private void convertFastIdentifier() {
 //        
 //        selectPss.setIri("meeting", subject.getURI());
@@ -188,9 +188,10 @@ public class BfPersonConverter extends BfAuthorityConverter {
         return props;   
     }
     
-    protected Map<Property, Property> getPropertyMap() {
+    @Override
+    protected Map<Property, Property> buildPropertyMap() {
         
-        Map<Property, Property> map = super.getPropertyMap();
+        Map<Property, Property> map = super.buildPropertyMap();
         
         // These properties are removed rather than converted.
         map.keySet().removeAll(BfProperty.properties(PROPERTIES_TO_RETRACT));
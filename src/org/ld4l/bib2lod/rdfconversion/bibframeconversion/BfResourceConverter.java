@@ -1,14 +1,14 @@
 package org.ld4l.bib2lod.rdfconversion.bibframeconversion;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Property;
@@ -16,63 +16,70 @@ import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.system.StreamOps;
+import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
-import org.ld4l.bib2lod.rdfconversion.OntNamespace;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 
 public class BfResourceConverter {
 
     private static final Logger LOGGER = 
             LogManager.getLogger(BfResourceConverter.class);
 
-    // Default resource submodel consists of all the statements in which the 
-    // resource is either the subject or the object. Subclasses may define a 
-    // more complex query.
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o . "
-                    + " ?s ?p2 ?resource . "                
-                    + "} WHERE {  { "                                                      
-                    + "?resource ?p1 ?o . "
-                    + "} UNION { "
-                    + "?s ?p2 ?resource . "
-                    + "} } ");
-    
     protected String localNamespace;
     protected Resource subject;
     protected Model outputModel;
-    protected List<Resource> resourcesToRemove;
+    
+    // Nodes designated for removal by the converters of the current file. 
+    // Shared by all converters, so a converter can remove a resource of 
+    // another type.
+    protected Set<Node> resourcesToRemove = new HashSet<Node>();
     
     // This would be the full input model for the file. Pass it in if we need
     // more data than we got in the subject submodel. 
     // protected Model inputModel;
+    
+    // Maps of Bibframe to LD4L types and properties. Built once, when the 
+    // converter is created, and not modified afterward.
+    private final Map<Resource, Resource> typeMap;
+    private final Map<Property, Property> propertyMap;
+    
+    // Scratch graph for the submodel of the subject being converted. Like
+    // outputModel, it is cleared and reused for each subject rather than
+    // reallocated.
+    private final Graph subGraph = Factory.createDefaultGraph();
 
     public BfResourceConverter(String localNamespace) {
         this.localNamespace = localNamespace;
+        this.typeMap = Collections.unmodifiableMap(buildTypeMap());
+        this.propertyMap = Collections.unmodifiableMap(buildPropertyMap());
+        this.outputModel = ModelFactory.createDefaultModel();
     }
 
     /*
-     * Public interface method. 
+     * Public interface method. Converts the subject and sends the converted
+     * statements to the output stream.
      */
-    public final Model convert(Resource subject) {         
+    public final void convert(Resource subject, StreamRDF output) {         
 
         // Initialize instance variables for processing of new subject
         init(subject);
 
         convert();
         
-        this.subject.getModel().close();
+        StreamOps.sendTriplesToStream(outputModel.getGraph(), output);
         
-        return outputModel;
+        // Release the statements of this subject.
+        outputModel.getGraph().clear();
+        subGraph.clear();
     }
     
     private void init(Resource subject) {
         this.subject = getResourceWithSubModel(subject);               
-        this.outputModel = ModelFactory.createDefaultModel();
-        this.resourcesToRemove = new ArrayList<Resource>();       
     }
 
     protected Resource getResourceWithSubModel(Resource subject) {
@@ -99,17 +106,13 @@ public class BfResourceConverter {
 
         LOGGER.debug("Getting resource submodel for " + resource.getURI());
         
-        ParameterizedSparqlString pss = getResourceSubModelPss();
-        pss.setNsPrefix(OntNamespace.BIBFRAME.prefix(),
-                OntNamespace.BIBFRAME.uri());
-        pss.setIri("resource", resource.getURI());
-        
-        Query query = pss.asQuery();
-        LOGGER.debug(query.toString());
-        QueryExecution qexec = QueryExecutionFactory.create(
-                query, resource.getModel());
-        Model resourceSubModel =  qexec.execConstruct();
-        qexec.close();
+        // Default resource submodel consists of all the statements in which 
+        // the resource is either the subject or the object. Subclasses may 
+        // define a more complex submodel.
+        ResourceSubModel subModel = newResourceSubModel(resource);
+        subModel.addOutgoing();
+        subModel.addIncoming();
+        Model resourceSubModel = subModel.toModel();
         
 //        RdfProcessor.printModel(resourceSubModel, 
 //                "Submodel for resource " + resource.getURI());
@@ -117,8 +120,13 @@ public class BfResourceConverter {
         return resourceSubModel;    
     }
     
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        return RESOURCE_SUBMODEL_PSS;
+    /*
+     * Returns an empty submodel for the resource, built in the converter's
+     * scratch graph. Only one submodel can be in use at a time.
+     */
+    protected ResourceSubModel newResourceSubModel(Resource resource) {
+        subGraph.clear();
+        return new ResourceSubModel(resource, subGraph);
     }
         
     /* 
@@ -151,56 +159,62 @@ public class BfResourceConverter {
      
             if (predicate.equals(RDF.type)) {
 
-                Resource type = object.asResource();                   
-                if (typeMap.containsKey(type)) {
-                    outputModel.add(stmtSubject, RDF.type, typeMap.get(type));
+                Resource ld4lType = typeMap.get(object);                   
+                if (ld4lType != null) {
+                    outputModel.add(stmtSubject, RDF.type, ld4lType);
                 }
 
-            } else if (propertyMap.containsKey(predicate)) {               
-                outputModel.add(
-                        stmtSubject, propertyMap.get(predicate), object);                
+            } else {
+                Property ld4lProperty = propertyMap.get(predicate);
+                if (ld4lProperty != null) {
+                    outputModel.add(stmtSubject, ld4lProperty, object);
+                }
             }
         }
         
         return outputModel;  
     }   
 
-    // Subclasses may override for non-default mappings or to remove types
-    // that shouldn't be asserted.
+    // Returns the map of Bibframe to LD4L types for the current subject.
+    // Subclasses may override to select a different map for some subjects.
     protected Map<Resource, Resource> getTypeMap() {
-        
-        // WRONG - alters map returned by BfType.typeMap()
-        // Map<Resource, Resource> typeMap = BfType.typeMap();
-        // typeMap.putAll(getTypeMap());        
-        Map<Resource, Resource> typeMap = new HashMap<Resource, Resource>();
-        
-        // Get default mapping from Bibframe to LD4L properties
-        typeMap.putAll(BfType.typeMap());
-        
         return typeMap;
     }
     
-    // Default. Subclasses may override.
+    // Returns the map of Bibframe to LD4L properties for the current subject.
+    // Subclasses may override to select a different map for some subjects.
     protected Map<Property, Property> getPropertyMap() {
+        return propertyMap;
+    }
+    
+    // Builds the type map when the converter is created. Subclasses may 
+    // override for non-default mappings or to remove types that shouldn't be 
+    // asserted. Returns a new map, which the caller may modify.
+    protected Map<Resource, Resource> buildTypeMap() {
         
-        // WRONG - alters map returned by BfProperty.propertyMap()
-        // Map<Property, Property> propertyMap = BfProperty.propertyMap();      
-        // propertyMap.putAll(getPropertyMap());
-        Map<Property, Property> propertyMap = new HashMap<Property, Property>();
+        // Get default mapping from Bibframe to LD4L types
+        return new HashMap<Resource, Resource>(BfType.typeMap());
+    }
+    
+    // Builds the property map when the converter is created. Subclasses may 
+    // override. Returns a new map, which the caller may modify.
+    protected Map<Property, Property> buildPropertyMap() {
         
         // Get default mapping from Bibframe to LD4L properties
-        propertyMap.putAll(BfProperty.propertyMap());
-        
-        return propertyMap;
+        return new HashMap<Property, Property>(BfProperty.propertyMap());
     }
     
-    public List<Resource> getResourcesToRemove() {
-        return resourcesToRemove;
+    /**
+     * Set the nodes designated for removal during conversion of the current
+     * file. The set is shared by all converters of the file.
+     */
+    public void setResourcesToRemove(Set<Node> resourcesToRemove) {
+        this.resourcesToRemove = resourcesToRemove;
     }
     
     // When this converter determines that another resource should be removed,
-    // add it to the list, and remove all statements pertaining to the resource
-    // from the subject submodel. The list resourcesToRemove will be used to
+    // add it to the set, and remove all statements pertaining to the resource
+    // from the subject submodel. The set resourcesToRemove will be used to
     // remove a resource during the resource iteration in BibframeConverter.
     protected void removeResource(Resource resource) {            
         Model model = subject.getModel();
@@ -208,7 +222,7 @@ public class BfResourceConverter {
         model.removeAll(resource, null, null);
         model.removeAll(null, null, resource);
         
-        resourcesToRemove.add(resource);
+        resourcesToRemove.add(resource.asNode());
         
         LOGGER.debug("Adding resource to remove: " + resource.getURI());
     }
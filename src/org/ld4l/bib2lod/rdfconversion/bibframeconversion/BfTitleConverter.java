@@ -3,7 +3,8 @@ package org.ld4l.bib2lod.rdfconversion.bibframeconversion;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.jena.query.ParameterizedSparqlString;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
@@ -18,29 +19,13 @@ import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.Ld4lProperty;
 import org.ld4l.bib2lod.rdfconversion.Ld4lType;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 
 public class BfTitleConverter extends BfResourceConverter {
 
     private static final Logger LOGGER = 
             LogManager.getLogger(BfTitleConverter.class);
     
-    // In addition to the property linking the bib resource to the title, 
-    // i.e. bf:workTitle or bf:instanceTitle, get any datatype title property
-    // assertions for the bib resource, i.e., bf:title or bf:titleStatement.
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-            "CONSTRUCT { ?bib ?bibProp ?resource . "
-            + "?resource ?titleProp ?titlePropObj . "
-            + "?bib ?bfTitle ?titleVal . } "
-            + "WHERE { { "
-            + "?bib ?bibProp ?resource . "
-            + "OPTIONAL { "
-            + "?bib ?bfTitle ?titleVal . "
-            + "FILTER (?bfTitle = " + BfProperty.BF_TITLE.sparqlUri() + ") } "
-            + "} UNION { "
-            + "?resource ?titleProp ?titlePropObj . "
-            + "} }");
-
     private static final Map<BfProperty, Ld4lType> TITLE_PROP_TO_TYPE =
             new HashMap<BfProperty, Ld4lType>();
     static {
@@ -66,10 +51,18 @@ public class BfTitleConverter extends BfResourceConverter {
         super(localNamespace);
     }
     
+    // In addition to the property linking the bib resource to the title, 
+    // i.e. bf:workTitle or bf:instanceTitle, get any datatype title property
+    // assertions for the bib resource, i.e., bf:title or bf:titleStatement.
     @Override
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        LOGGER.debug(RESOURCE_SUBMODEL_PSS);
-        return RESOURCE_SUBMODEL_PSS;
+    protected Model getResourceSubModel(Resource resource) {
+        ResourceSubModel subModel = newResourceSubModel(resource);
+        Node bfTitle = BfProperty.BF_TITLE.property().asNode();
+        for (Triple triple : subModel.addIncoming()) {
+            subModel.add(triple.getSubject(), bfTitle);
+        }
+        subModel.addOutgoing();
+        return subModel.toModel();
     }
 
     public Model convert() {
@@ -377,15 +370,10 @@ public class BfTitleConverter extends BfResourceConverter {
 
     
     @Override
-    protected Map<Property, Property> getPropertyMap() {
-        
-        // WRONG - alters map returned by BfProperty.propertyMap()
-        // Map<Property, Property> propertyMap = BfProperty.propertyMap();      
-        // propertyMap.putAll(getPropertyMap());
-        Map<Property, Property> propertyMap = new HashMap<Property, Property>();
+    protected Map<Property, Property> buildPropertyMap() {
         
         // Get default mapping from Bibframe to LD4L properties
-        propertyMap.putAll(BfProperty.propertyMap());
+        Map<Property, Property> propertyMap = super.buildPropertyMap();
         
         // BfTitleConverter normalizes the label and adds an rdfs:label
         // assertion to the outputModel. We don't want super.convert() to
@@ -1,9 +1,9 @@
 package org.ld4l.bib2lod.rdfconversion.bibframeconversion;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.jena.query.ParameterizedSparqlString;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
@@ -19,20 +19,6 @@ public class BfTopicConverter extends BfAuthorityConverter {
     private static final Logger LOGGER = 
             LogManager.getLogger(BfTopicConverter.class);
 
-    private static ParameterizedSparqlString constructPss = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o1 . "
-                    + " ?o1 ?p2 ?o2 . "
-                    + " ?s ?p3 ?resource . " 
-                    + "} WHERE { { "  
-                    + "?resource ?p1 ?o1 . "
-                    + "OPTIONAL { ?o1 ?p2 ?o2 . } "
-                    + "} UNION { " 
-                    + "?s ?p3 ?resource . "
-                    + "} } ");
-
-   
-    
     private static final Map<BfProperty, Ld4lProperty> FAST_PROPERTY_MAP = 
             new HashMap<BfProperty, Ld4lProperty>();
     static {
@@ -45,6 +31,11 @@ public class BfTopicConverter extends BfAuthorityConverter {
     static {
         PROPERTY_MAP.put(BfProperty.BF_LABEL, Ld4lProperty.PREFERRED_LABEL);
     }
+    
+    // The only properties converted for FAST topics.
+    private static final Map<Property, Property> FAST_PROPERTIES = 
+            Collections.unmodifiableMap(
+                    BfProperty.propertyMap(FAST_PROPERTY_MAP));
 
     public BfTopicConverter(String localNamespace) {
         super(localNamespace);
@@ -65,16 +56,17 @@ public class BfTopicConverter extends BfAuthorityConverter {
     protected Map<Property, Property> getPropertyMap() {
         
         if (isFastHeading()) {
-            return BfProperty.propertyMap(FAST_PROPERTY_MAP);
+            return FAST_PROPERTIES;
         }
-
-        // WRONG - alters map returned by BfProperty.propertyMap()
-        // Map<Property, Property> PROPERTY_MAP = BfProperty.propertyMap();      
-        // PROPERTY_MAP.putAll(getPropertyMap());
-        Map<Property, Property> map = new HashMap<Property, Property>();
         
-        // Get default mapping from Bibframe to LD4L properties
-        map.putAll(BfProperty.propertyMap());
+        return super.getPropertyMap();
+    }
+    
+    @Override
+    protected Map<Property, Property> buildPropertyMap() {
+
+        // Get the mapping for bf:Authorities
+        Map<Property, Property> map = super.buildPropertyMap();
         
         // These properties have a conversion for Topics different from the
         // superclass (BfAuthorityConverter).
@@ -89,7 +81,7 @@ public class BfTopicConverter extends BfAuthorityConverter {
         
         if (isFastHeading()) {
             // Return empty map - no type assertions for FAST topics
-            return new HashMap<Resource, Resource>();
+            return Collections.emptyMap();
         }
         
         return super.getTypeMap();
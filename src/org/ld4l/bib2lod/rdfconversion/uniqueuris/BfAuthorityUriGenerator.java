@@ -2,40 +2,26 @@ package org.ld4l.bib2lod.rdfconversion.uniqueuris;
 
 import java.util.List;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QuerySolution;
-import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
-import org.ld4l.bib2lod.util.NacoNormalizer;
+import org.ld4l.bib2lod.rdfconversion.QueryTemplate;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 
 public class BfAuthorityUriGenerator extends BfResourceUriGenerator {
 
     private static final Logger LOGGER = 
             LogManager.getLogger(BfAuthorityUriGenerator.class);
-
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o1 . "
-                    + " ?o1 ?p2 ?o2 . "
-                    + " ?s ?p3 ?resource . " 
-                    + "} WHERE { { "  
-                    + "?resource ?p1 ?o1 . "
-                    + "OPTIONAL { ?o1 ?p2 ?o2 . } "
-                    + "} UNION { " 
-                    + "?s ?p3 ?resource . "
-                    + "} } ");
     
-    private static ParameterizedSparqlString authLabelPss = 
-            new ParameterizedSparqlString(
+    private static final QueryTemplate AUTH_LABEL_QUERY = 
+            new QueryTemplate(
                       "SELECT ?authLabel WHERE { "
                       + "?resource " 
                       + BfProperty.BF_HAS_AUTHORITY.sparqlUri() + " "
@@ -52,9 +38,14 @@ public class BfAuthorityUriGenerator extends BfResourceUriGenerator {
         super(localNamespace);
     }
 
+    // Submodel includes the statements of the resource's objects as well as
+    // those of the resource.
     @Override
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        return RESOURCE_SUBMODEL_PSS;
+    protected Model getResourceSubModel(Resource resource) {
+        ResourceSubModel subModel = new ResourceSubModel(resource);
+        subModel.addOutgoingWithObjects();
+        subModel.addIncoming();
+        return subModel.toModel();
     }
     
     @Override
@@ -97,7 +88,7 @@ public class BfAuthorityUriGenerator extends BfResourceUriGenerator {
               // criteria.                
         }
     
-        authAccessPoint = NacoNormalizer.normalize(authAccessPoint);
+        authAccessPoint = normalize(authAccessPoint);
         LOGGER.debug("Got authAccessPoint key " + authAccessPoint
                 + " for resource " + resource.getURI());
         
@@ -115,28 +106,20 @@ public class BfAuthorityUriGenerator extends BfResourceUriGenerator {
 
         // Easier to do this as a SPARQL query since we're jumping over the 
         // intermediate madsrdf:Authority node.
-        authLabelPss.setIri("resource", resource.getURI());
-        LOGGER.debug(authLabelPss.toString());
-        Query query = authLabelPss.asQuery();
-
-        QueryExecution qexec = 
-                QueryExecutionFactory.create(query, resource.getModel());
-        ResultSet results = qexec.execSelect();
+        List<QuerySolution> results = AUTH_LABEL_QUERY.select(
+                resource.getModel(), "resource", resource);
         
         // If there is more than one (which there shouldn't be), we'll get the
         // first one, but doesn't matter if we have no selection criteria. 
-        while (results.hasNext()) {
-            QuerySolution soln = results.next();
+        for (QuerySolution soln : results) {
             RDFNode node = soln.get("authLabel");
             if (node != null && node.isLiteral()) {
                 authoritativeLabel = node.asLiteral().getLexicalForm();
                 break;
             }
         }
-    
-        qexec.close();
         
-        authoritativeLabel = NacoNormalizer.normalize(authoritativeLabel);
+        authoritativeLabel = normalize(authoritativeLabel);
         LOGGER.debug("Got authorizedLabel key " + authoritativeLabel
                 + " from madsrdf:Authority for resource " + resource.getURI());
         
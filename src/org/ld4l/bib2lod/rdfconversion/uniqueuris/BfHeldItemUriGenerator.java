@@ -1,15 +1,15 @@
 package org.ld4l.bib2lod.rdfconversion.uniqueuris;
 
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
+import java.util.List;
+
 import org.apache.jena.query.QuerySolution;
-import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
+import org.ld4l.bib2lod.rdfconversion.QueryTemplate;
 
 public class BfHeldItemUriGenerator extends BfResourceUriGenerator {
 
@@ -20,7 +20,7 @@ public class BfHeldItemUriGenerator extends BfResourceUriGenerator {
     private static String[] KEY_TYPES = 
         { "lcc", "ddc", "nlm", "udc", "barcode", "id" };        
 
-    private static final String SPARQL = 
+    private static final QueryTemplate HELD_ITEM_QUERY = new QueryTemplate(
                 "SELECT ?item ?lcc ?ddc ?nlm ?udc ?barcode ?id "
                 + "?shelfMark ?scheme ?label "
                 + "WHERE { "
@@ -50,7 +50,7 @@ public class BfHeldItemUriGenerator extends BfResourceUriGenerator {
                 + " ?scheme . } "   
                 + "OPTIONAL { ?item "
                 + BfProperty.BF_LABEL.sparqlUri() + " ?label . } "
-                + "}";
+                + "}");
     
     public BfHeldItemUriGenerator(String localNamespace) {
         super(localNamespace);
@@ -59,14 +59,12 @@ public class BfHeldItemUriGenerator extends BfResourceUriGenerator {
     @Override
     protected String getUniqueKey() {
 
-        QueryExecution qexec = 
-                QueryExecutionFactory.create(SPARQL, resource.getModel());
-        ResultSet results = qexec.execSelect();
+        List<QuerySolution> results = 
+                HELD_ITEM_QUERY.select(resource.getModel());
         
         // If there is more than one (which there shouldn't be), we'll get the
         // first one, but doesn't matter if we have no selection criteria. 
-        while (results.hasNext()) {
-            QuerySolution soln = results.next();
+        for (QuerySolution soln : results) {
 
             for (String k : KEY_TYPES) {
                 RDFNode node = soln.get(k);
@@ -96,8 +94,6 @@ public class BfHeldItemUriGenerator extends BfResourceUriGenerator {
             }
         }
         
-        qexec.close();
-        
         return super.getUniqueKey();
     }
 }
@@ -1,13 +1,8 @@
 package org.ld4l.bib2lod.rdfconversion.uniqueuris;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QuerySolution;
-import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.RDFNode;
@@ -17,7 +12,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
+import org.ld4l.bib2lod.rdfconversion.QueryTemplate;
 import org.ld4l.bib2lod.rdfconversion.RdfProcessor;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 import org.ld4l.bib2lod.rdfconversion.Vocabulary;
 import org.ld4l.bib2lod.rdfconversion.bibframeconversion.BfIdentifierConverter;
 
@@ -25,23 +22,9 @@ public class BfInstanceUriGenerator extends BfResourceUriGenerator {
 
     private static final Logger LOGGER = 
             LogManager.getLogger(BfInstanceUriGenerator.class);
-
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o1 . "
-                    + " ?s ?p2 ?resource . " 
-                    + " ?o1 ?p3 ?o2 "
-                    + "} WHERE { { "  
-                    + "?resource ?p1 ?o1 . "
-                    + "OPTIONAL { " 
-                    + "?o1 a " + BfType.BF_IDENTIFIER.sparqlUri() + " . "
-                    + "?o1 ?p3 ?o2 . } "
-                    + "} UNION { "
-                    + "?s ?p2 ?resource . "
-                    + "} } ");
     
     
-    private static String SPARQL = 
+    private static final QueryTemplate INSTANCE_QUERY = new QueryTemplate(
             "PREFIX fn: <http://www.w3.org/2005/xpath-functions#>  " 
             // + "PREFIX afn: <http://jena.apache.org/ARQ/function#>  "
             + "SELECT ?instance ?worldcatId "
@@ -66,17 +49,20 @@ public class BfInstanceUriGenerator extends BfResourceUriGenerator {
             + "?otherIdScheme ; " 
             + BfProperty.BF_IDENTIFIER_VALUE.sparqlUri() + " "
             + " ?otherIdValue . }  "
-            + "}";
+            + "}");
     
     
     public BfInstanceUriGenerator(String localNamespace) {
         super(localNamespace);
     }
 
+    // Submodel includes the statements of the Instance's Identifiers.
     @Override
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        LOGGER.debug(RESOURCE_SUBMODEL_PSS);
-        return RESOURCE_SUBMODEL_PSS;
+    protected Model getResourceSubModel(Resource resource) {
+        ResourceSubModel subModel = new ResourceSubModel(resource);
+        subModel.addOutgoingWithObjects(BfType.BF_IDENTIFIER.type().asNode());
+        subModel.addIncoming();
+        return subModel.toModel();
     }
     
     @Override
@@ -86,13 +72,13 @@ public class BfInstanceUriGenerator extends BfResourceUriGenerator {
         
         // RdfProcessor.printModel(resource.getModel(), "Instance submodel:");
         
-        LOGGER.debug("Instance query: " + SPARQL);
-        QueryExecution qexec = 
-                QueryExecutionFactory.create(SPARQL, resource.getModel());
-        ResultSet results = qexec.execSelect();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Instance query: " + INSTANCE_QUERY);
+        }
+        List<QuerySolution> results = 
+                INSTANCE_QUERY.select(resource.getModel());
         
-        while (results.hasNext()) {
-            QuerySolution soln = results.next();
+        for (QuerySolution soln : results) {
             LOGGER.debug("Query solution for resource " + resource.getURI()
                     + ": " + soln.toString());
             RDFNode worldcatId = soln.get("worldcatId");
@@ -119,8 +105,6 @@ public class BfInstanceUriGenerator extends BfResourceUriGenerator {
             }
         }
         
-        qexec.close();
-        
         if (key == null) {
             key = super.getUniqueKey();
         }
@@ -142,19 +126,14 @@ public class BfInstanceUriGenerator extends BfResourceUriGenerator {
 
         Model model = ModelFactory.createDefaultModel();
         
-        String alphaPrefix = RdfProcessor.getLocalNameAlphaPrefix();
-        
-        // Remove the alpha prefix that has been added to the local name.
-        String localName = 
-                instance.getLocalName().replaceFirst(alphaPrefix, "");
-        
-        // Get the initial digit string from the original local name. Removes
-        // the hyphen and following characters (Harvard), and "instanceN" 
-        // (Cornell, Stanford).
-        Matcher matcher = Pattern.compile("\\d+").matcher(localName);
+        // Get the record number from the original local name. Removes the
+        // alpha prefix that has been added to the local name, the hyphen and
+        // following characters (Harvard), and "instanceN" (Cornell, 
+        // Stanford).
+        String localIdentifierValue = 
+                RdfProcessor.getRecordNumber(instance.getLocalName());
         
-        if (matcher.find()) {
-            String localIdentifierValue = matcher.group();
+        if (localIdentifierValue != null) {
             LOGGER.debug("Adding new local identifier with value " 
                     + localIdentifierValue + " for resource "
                     + newUri);
@@ -1,11 +1,8 @@
 package org.ld4l.bib2lod.rdfconversion.uniqueuris;
 
 import java.util.List;
+import java.util.function.Function;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
@@ -14,9 +11,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
-import org.ld4l.bib2lod.rdfconversion.OntNamespace;
 import org.ld4l.bib2lod.rdfconversion.RdfProcessor;
-import org.ld4l.bib2lod.util.MurmurHash;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
+import org.ld4l.bib2lod.util.LruCache;
 import org.ld4l.bib2lod.util.NacoNormalizer;
 
 // If not needed as a fallback URI generator, make abstract.
@@ -25,27 +22,41 @@ public class BfResourceUriGenerator {
     private static final Logger LOGGER = 
             LogManager.getLogger(BfResourceUriGenerator.class);
 
-    // Default resource submodel consists of all the statements in which the 
-    // resource is either the subject or the object. Subclasses may define a 
-    // more complex query.
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o . "
-                    + " ?s ?p2 ?resource . "                
-                    + "} WHERE {  { "                                                      
-                    + "?resource ?p1 ?o . "
-                    + "} UNION { "
-                    + "?s ?p2 ?resource . "
-                    + "} } ");
-
-
     protected final String localNamespace;
     protected Resource resource;
     protected BfType bfType;
+    
+    // Cache of normalized strings shared by the URI generators of all 
+    // threads, or null if normalized strings are not cached.
+    private LruCache<String, String> normalizationCache;
+    
+    // Working storage for normalization. Each thread has its own URI 
+    // generators, so the buffer is not shared.
+    private final StringBuilder normalizationBuffer = new StringBuilder();
+    private final Function<String, String> normalizer = 
+            s -> NacoNormalizer.normalize(s, normalizationBuffer);
+    
+    private KeyHash keyHash = KeyHash.MURMUR64;
+    
+    // Shared by the URI generators of all threads, or null if collisions
+    // are not tracked.
+    private KeyCollisionTracker collisionTracker;
 
     public BfResourceUriGenerator(String localNamespace) {
         this.localNamespace = localNamespace;
     }
+    
+    public void setNormalizationCache(LruCache<String, String> cache) {
+        this.normalizationCache = cache;
+    }
+    
+    public void setKeyHash(KeyHash keyHash) {
+        this.keyHash = keyHash;
+    }
+    
+    public void setCollisionTracker(KeyCollisionTracker collisionTracker) {
+        this.collisionTracker = collisionTracker;
+    }
    
     // Subclasses that may generate URIs outside the local namespace should
     // override this method. Otherwise, they need only override getUniqueKey().
@@ -63,35 +74,40 @@ public class BfResourceUriGenerator {
         this.resource = getResourceWithSubModel(resource);        
     }
     
+    /*
+     * Normalize a string according to NACO rules, for use in a unique key.
+     */
+    protected String normalize(String s) {
+        if (s == null) {
+            return s;
+        }
+        if (normalizationCache == null) {
+            return normalizer.apply(s);
+        }
+        return normalizationCache.get(s, normalizer);
+    }
+    
     protected Resource getResourceWithSubModel(Resource resource) {
         Model resourceSubModel = getResourceSubModel(resource);
         return resourceSubModel.createResource(resource.getURI());        
     }
     
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        return RESOURCE_SUBMODEL_PSS;
-    }
-
     /*
      * Get the submodel of the input model consisting of statements in which 
-     * this resource is either the subject or object.
+     * this resource is either the subject or object. Subclasses may override
+     * to define a more complex submodel.
      */
-    private Model getResourceSubModel(Resource resource) {
+    protected Model getResourceSubModel(Resource resource) {
 
         LOGGER.debug("Getting resource submodel for " + resource.getURI());
         
-        ParameterizedSparqlString pss = getResourceSubModelPss();
-        pss.setNsPrefix(OntNamespace.BIBFRAME.prefix(),
-                OntNamespace.BIBFRAME.uri());
-        pss.setIri("resource", resource.getURI());
-        
-        Query query = pss.asQuery();
-        // LOGGER.debug(query.toString());
-        QueryExecution qexec = QueryExecutionFactory.create(
-                query, resource.getModel());
-        Model resourceSubModel =  qexec.execConstruct();
-        LOGGER.debug("resourceSubModel: " + resourceSubModel.toString());
-        qexec.close();
+        ResourceSubModel subModel = new ResourceSubModel(resource);
+        subModel.addOutgoing();
+        subModel.addIncoming();
+        Model resourceSubModel = subModel.toModel();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("resourceSubModel: " + resourceSubModel.toString());
+        }
         
 //        RdfProcessor.printModel(resourceSubModel, 
 //                "Submodel for resource " + resource.getURI());
@@ -166,13 +182,32 @@ public class BfResourceUriGenerator {
         // entities with the same name, one a Person and one an Organization,
         // get assigned the same unique URIs unless the type is included in the
         // unique local name.
-        String uniqueKey = bfType.name() + getUniqueKey();
-        LOGGER.debug("Created unique key " + uniqueKey + " for resource "
-                + resource.getURI());
-        String hashedKey = getHashCode(uniqueKey);
-        LOGGER.debug("Hashed key: " + hashedKey);
-        String localName = RdfProcessor.getLocalNameAlphaPrefix() + hashedKey;
-        LOGGER.debug("Unique local name: " + localName);
+        // The type name and key are hashed as one string, without 
+        // concatenating them. valueOf() gives the key of a null key that
+        // concatenation gave.
+        String typeName = bfType.name();
+        String uniqueKey = String.valueOf(getUniqueKey());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Created unique key " + typeName + uniqueKey 
+                    + " for resource " + resource.getURI());
+        }
+        String hashedKey;
+        String localName;
+        if (collisionTracker == null) {
+            hashedKey = getHashCode(typeName, uniqueKey);
+            localName = RdfProcessor.getLocalNameAlphaPrefix() + hashedKey;
+        } else {
+            long[] hashValue = keyHash.hashValue(typeName, uniqueKey);
+            hashedKey = keyHash.toHex(hashValue);
+            localName = RdfProcessor.getLocalNameAlphaPrefix() + hashedKey;
+            collisionTracker.add(hashValue, 
+                    keyHash.fingerprint(typeName, uniqueKey), localName, 
+                    typeName + uniqueKey, resource.getURI());
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Hashed key: " + hashedKey);
+            LOGGER.debug("Unique local name: " + localName);
+        }
         return localName;
     }
  
@@ -208,14 +243,14 @@ public class BfResourceUriGenerator {
             }
         }
     
-        bfLabel = NacoNormalizer.normalize(bfLabel);
+        bfLabel = normalize(bfLabel);
         LOGGER.debug("Got bf:label key " + bfLabel + " for resource " 
                 + resource.getURI());
                 
         return bfLabel;
     }
     
-    protected String getHashCode(String key) {
+    protected String getHashCode(CharSequence typeName, CharSequence key) {
         // long hash64 = Crc64.checksum(key);
         // long hash64 = Crc64Mod.checksum(key);
         // See https://en.wikipedia.org/wiki/MurmurHash on various MurmurHash
@@ -223,9 +258,7 @@ public class BfResourceUriGenerator {
         // http://blog.reverberate.org/2012/01/state-of-hash-functions-2012.html
         // for improved algorithms.There are variants of Murmur Hash optimized 
         // for a 64-bit architecture. 
-        LOGGER.debug("Key: " + key);
-        long hash64 = MurmurHash.hash64(key);
-        return Long.toHexString(hash64);        
+        return keyHash.hash(typeName, key);
     }
     
 }
@@ -1,24 +1,22 @@
 package org.ld4l.bib2lod.rdfconversion.uniqueuris;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QuerySolution;
-import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
+import org.ld4l.bib2lod.rdfconversion.QueryTemplate;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 import org.ld4l.bib2lod.rdfconversion.Vocabulary;
-import org.ld4l.bib2lod.util.NacoNormalizer;
 
 // TODO Will need to treat topics differently - URI should come from schemes
 // like FAST. Will not just need to send back a key.
@@ -26,22 +24,10 @@ public class BfTopicUriGenerator extends BfResourceUriGenerator {
 
     private static final Logger LOGGER = 
             LogManager.getLogger(BfTopicUriGenerator.class);
-
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o1 . "
-                    + " ?o1 ?p2 ?o2 . "
-                    + " ?s ?p3 ?resource . " 
-                    + "} WHERE { { "  
-                    + "?resource ?p1 ?o1 . "
-                    + "OPTIONAL { ?o1 ?p2 ?o2 . } "
-                    + "} UNION { " 
-                    + "?s ?p3 ?resource . "
-                    + "} } ");
     
     // Currently this only gets FAST IDs. 
-    private static ParameterizedSparqlString EXTERNAL_IDENTIFIER_PSS = 
-            new ParameterizedSparqlString(
+    private static final QueryTemplate EXTERNAL_IDENTIFIER_QUERY = 
+            new QueryTemplate(
                     "SELECT ?id WHERE { "  
                     + "?topic a " + BfType.BF_TOPIC.sparqlUri() + " . "
                     + "?topic " 
@@ -50,8 +36,8 @@ public class BfTopicUriGenerator extends BfResourceUriGenerator {
                     + BfType.BF_IDENTIFIER.sparqlUri() + " ; " 
                     + BfProperty.BF_IDENTIFIER_VALUE.sparqlUri() + " ?id . }");
     
-    private static ParameterizedSparqlString MADS_AUTHORITY_PSS = 
-            new ParameterizedSparqlString(
+    private static final QueryTemplate MADS_AUTHORITY_QUERY = 
+            new QueryTemplate(
                     "SELECT ?madsScheme ?madsAuthLabel WHERE { "  
                     + "?topic a " + BfType.BF_TOPIC.sparqlUri() + " . "
                     + "?topic " 
@@ -64,8 +50,8 @@ public class BfTopicUriGenerator extends BfResourceUriGenerator {
                     + "?madsAuthLabel . }"); 
 
 
-    private static ParameterizedSparqlString AUTH_ACCESS_POINT_PSS = 
-            new ParameterizedSparqlString(
+    private static final QueryTemplate AUTH_ACCESS_POINT_QUERY = 
+            new QueryTemplate(
                     "SELECT ?type ?authAccessPoint WHERE { "
                     + "?topic a " + BfType.BF_TOPIC.sparqlUri() + " . "
                     + "?topic a ?type . "                                      
@@ -102,9 +88,14 @@ public class BfTopicUriGenerator extends BfResourceUriGenerator {
         super(localNamespace);
     }
     
+    // Submodel includes the statements of the resource's objects as well as
+    // those of the resource.
     @Override
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        return RESOURCE_SUBMODEL_PSS;
+    protected Model getResourceSubModel(Resource resource) {
+        ResourceSubModel subModel = new ResourceSubModel(resource);
+        subModel.addOutgoingWithObjects();
+        subModel.addIncoming();
+        return subModel.toModel();
     }
     
     @Override
@@ -137,18 +128,12 @@ public class BfTopicUriGenerator extends BfResourceUriGenerator {
         
         String externalIdUri = null;
         
-        EXTERNAL_IDENTIFIER_PSS.setIri("topic", resource.getURI());   
-        Query query = EXTERNAL_IDENTIFIER_PSS.asQuery();
-        // LOGGER.debug(query.toString());
-        
-        QueryExecution qexec = QueryExecutionFactory.create(
-                query, resource.getModel());
-        ResultSet results = qexec.execSelect();
+        List<QuerySolution> results = EXTERNAL_IDENTIFIER_QUERY.select(
+                resource.getModel(), "topic", resource);
         
         // First get the URI from an external authority. For now, we have only
         // FAST URIs (mostly from Cornell, a few from Stanford).
-        while (results.hasNext()) {
-            QuerySolution soln = results.next();
+        for (QuerySolution soln : results) {
 
             RDFNode idNode = soln.get("id");
             if (idNode != null && idNode.isLiteral()) {
@@ -215,24 +200,18 @@ public class BfTopicUriGenerator extends BfResourceUriGenerator {
         
         String key = null;
         
-        MADS_AUTHORITY_PSS.setIri("topic", resource.getURI());   
-        Query query = MADS_AUTHORITY_PSS.asQuery();
-        // LOGGER.debug(query.toString());
-        
-        QueryExecution qexec = QueryExecutionFactory.create(
-                query, resource.getModel());
-        ResultSet results = qexec.execSelect();
+        List<QuerySolution> results = MADS_AUTHORITY_QUERY.select(
+                resource.getModel(), "topic", resource);
         
         // There should be at most one result.
         // Example:
         // madsScheme: 
         // madsAuthLabel:
-        while (results.hasNext()) {
-            QuerySolution soln = results.next();
+        for (QuerySolution soln : results) {
             Resource madsScheme = soln.getResource("madsScheme");
             Literal literal = soln.getLiteral("madsAuthLabel");
             String authLabel = 
-                    NacoNormalizer.normalize(literal.getLexicalForm());
+                    normalize(literal.getLexicalForm());
             key = madsScheme.getURI() + "+" + authLabel;
             LOGGER.debug("Got unique key from MADS scheme and " 
                     + "MADS authoritativeLabel: " + key);
@@ -244,24 +223,19 @@ public class BfTopicUriGenerator extends BfResourceUriGenerator {
     private String getUniqueKeyFromTypeAndAuthAccessPoint() {
         String key = null;
         
-        AUTH_ACCESS_POINT_PSS.setIri("topic", resource.getURI());
-        Query query = AUTH_ACCESS_POINT_PSS.asQuery();
-        
-        QueryExecution qexec = QueryExecutionFactory.create(
-                query, resource.getModel());
-        ResultSet results = qexec.execSelect();
+        List<QuerySolution> results = AUTH_ACCESS_POINT_QUERY.select(
+                resource.getModel(), "topic", resource);
 
         // There should be at most one result.
         // Example:
         // type: http://www.loc.gov/mads/rdf/v1#HierarchicalGeographic
         // (This is the only type represented in the data.)
         // bf:authorizedAccessPoint: "United States. New York. New York."
-        while (results.hasNext()) {
-            QuerySolution soln = results.next();
+        for (QuerySolution soln : results) {
             Resource type = soln.getResource("type");
             Literal literal = soln.getLiteral("authAccessPoint");
             String authAccessPoint = 
-                    NacoNormalizer.normalize(literal.getLexicalForm());
+                    normalize(literal.getLexicalForm());
             key = type.getURI() + "+" + authAccessPoint;
             LOGGER.debug("Got unique key from specialized Topic type and "
                     + "bf:authorizedAccessPoint: " + key);
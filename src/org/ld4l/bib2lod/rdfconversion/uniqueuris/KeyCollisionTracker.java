@@ -0,0 +1,205 @@
+package org.ld4l.bib2lod.rdfconversion.uniqueuris;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Detects unique keys that hash to the same local name, and so would merge
+ * different resources. For each distinct hash value the tracker stores a
+ * fingerprint of the first key seen with it: a second hash of the key,
+ * computed independently of the first. A key with the same hash value but
+ * a different fingerprint is a collision. Keys are not stored, so the
+ * memory used depends only on the number of distinct keys: 24 bytes per
+ * slot, in direct buffers outside the Java heap. The tracker is shared by
+ * all threads.
+ *
+ * A collision is recorded with the key and URI of the resource that
+ * collided with an earlier one. The earlier key is not known; its
+ * resources are those with the same local name in the output.
+ * Collisions are detected only among keys hashed in the same run;
+ * resources whose unique URIs are found in the URI index are not hashed.
+ */
+public class KeyCollisionTracker {
+
+    private static final Logger LOGGER =
+            LogManager.getLogger(KeyCollisionTracker.class);
+
+    // Slot: hash value (two longs) and fingerprint. A fingerprint of 0
+    // marks an empty slot, so fingerprints are stored with the low bit set.
+    private static final int SLOT_SIZE = 24;
+    private static final int PAGE_SLOTS = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.7;
+
+    private ByteBuffer[] pages;
+    private int capacity;
+    private int size;
+
+    private final List<Collision> collisions = new ArrayList<Collision>();
+    private final Set<String> collidingKeys = new HashSet<String>();
+
+    public KeyCollisionTracker() {
+        capacity = INITIAL_CAPACITY;
+        pages = allocatePages(capacity);
+    }
+
+    /**
+     * Record the hash value of a key. Return true if a different key has
+     * been recorded with the same hash value.
+     * @param hashValue - the hash value of the key, as returned by
+     * KeyHash.hashValue()
+     * @param fingerprint - the fingerprint of the key, as returned by
+     * KeyHash.fingerprint()
+     * @param localName - the local name minted from the hash value
+     * @param key - the key
+     * @param uri - the URI of the resource the key was computed for
+     */
+    public synchronized boolean add(long[] hashValue, long fingerprint,
+            String localName, String key, String uri) {
+
+        long hash1 = hashValue[0];
+        long hash2 = hashValue[1];
+        long storedFingerprint = fingerprint | 1;
+
+        int mask = capacity - 1;
+        int slot = (int) (hash1 ^ (hash1 >>> 32)) & mask;
+        while (true) {
+            ByteBuffer page = pages[slot / PAGE_SLOTS];
+            int offset = (slot % PAGE_SLOTS) * SLOT_SIZE;
+            long slotFingerprint = page.getLong(offset + 16);
+            if (slotFingerprint == 0) {
+                page.putLong(offset, hash1);
+                page.putLong(offset + 8, hash2);
+                page.putLong(offset + 16, storedFingerprint);
+                size++;
+                if (size > capacity * LOAD_FACTOR) {
+                    grow();
+                }
+                return false;
+            }
+            if (page.getLong(offset) == hash1
+                    && page.getLong(offset + 8) == hash2) {
+                if (slotFingerprint == storedFingerprint) {
+                    return false;
+                }
+                // A key recurs once for each record it occurs in, but is
+                // reported once.
+                if (collidingKeys.add(key)) {
+                    LOGGER.warn("Unique key " + key + " of resource " + uri
+                            + " collides with another key on local name "
+                            + localName + ".");
+                    collisions.add(new Collision(localName, key, uri));
+                }
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Return the number of distinct hash values recorded.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of distinct colliding keys.
+     */
+    public synchronized int collisionCount() {
+        return collisions.size();
+    }
+
+    /**
+     * Write the collisions to a tab-separated report file: local name,
+     * colliding key, and resource URI, one collision per line.
+     */
+    public synchronized void writeReport(File file) throws IOException {
+
+        try (PrintWriter writer = new PrintWriter(file,
+                StandardCharsets.UTF_8.name())) {
+            writer.println("# " + collisions.size() + " colliding keys among "
+                    + size + " distinct hash values.");
+            writer.println("# local name\tkey\tresource URI");
+            for (Collision collision : collisions) {
+                writer.println(collision.localName + "\t" + collision.key
+                        + "\t" + collision.uri);
+            }
+        }
+    }
+
+    /**
+     * Release the table. The tracker can't be used afterwards.
+     */
+    public synchronized void close() {
+        pages = null;
+    }
+
+    private void grow() {
+
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Key collision tracker is full.");
+        }
+
+        ByteBuffer[] oldPages = pages;
+        int oldCapacity = capacity;
+        capacity *= 2;
+        pages = allocatePages(capacity);
+        int mask = capacity - 1;
+
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            ByteBuffer oldPage = oldPages[oldSlot / PAGE_SLOTS];
+            int oldOffset = (oldSlot % PAGE_SLOTS) * SLOT_SIZE;
+            long fingerprint = oldPage.getLong(oldOffset + 16);
+            if (fingerprint == 0) {
+                continue;
+            }
+            long hash1 = oldPage.getLong(oldOffset);
+            int slot = (int) (hash1 ^ (hash1 >>> 32)) & mask;
+            while (true) {
+                ByteBuffer page = pages[slot / PAGE_SLOTS];
+                int offset = (slot % PAGE_SLOTS) * SLOT_SIZE;
+                if (page.getLong(offset + 16) == 0) {
+                    page.putLong(offset, hash1);
+                    page.putLong(offset + 8, oldPage.getLong(oldOffset + 8));
+                    page.putLong(offset + 16, fingerprint);
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    private static ByteBuffer[] allocatePages(int capacity) {
+        ByteBuffer[] pages = new ByteBuffer[capacity / PAGE_SLOTS];
+        for (int i = 0; i < pages.length; i++) {
+            // Direct buffers are zeroed, so all slots start empty.
+            pages[i] = ByteBuffer.allocateDirect(PAGE_SLOTS * SLOT_SIZE);
+        }
+        return pages;
+    }
+
+    private static class Collision {
+        private final String localName;
+        private final String key;
+        private final String uri;
+
+        Collision(String localName, String key, String uri) {
+            this.localName = localName;
+            this.key = key;
+            this.uri = uri;
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.ld4l.bib2lod.rdfconversion.uniqueuris;
+
+import org.ld4l.bib2lod.util.MurmurHash;
+
+/**
+ * Hash functions for turning the unique key of a resource into the unique
+ * part of its local name. MURMUR64 gives the local names minted by earlier 
+ * versions of the converter. MURMUR128 makes collisions between different 
+ * keys unlikely at the scale of many merged catalogs, at the cost of longer 
+ * local names, and is incompatible with URIs minted by MURMUR64.
+ */
+public enum KeyHash {
+
+    MURMUR64("murmur64") {
+        @Override
+        public long[] hashValue(CharSequence... parts) {
+            return new long[] { MurmurHash.hash64(parts), 0 };
+        }
+        
+        @Override
+        public String toHex(long[] hashValue) {
+            return Long.toHexString(hashValue[0]);
+        }
+        
+        @Override
+        public long fingerprint(CharSequence... parts) {
+            return MurmurHash.hash128(parts)[0];
+        }
+    },
+    
+    MURMUR128("murmur128") {
+        @Override
+        public long[] hashValue(CharSequence... parts) {
+            return MurmurHash.hash128(parts);
+        }
+        
+        @Override
+        public String toHex(long[] hashValue) {
+            // Fixed width, so that the halves can't run together ambiguously.
+            StringBuilder hex = new StringBuilder(32);
+            appendHex(hex, hashValue[0]);
+            appendHex(hex, hashValue[1]);
+            return hex.toString();
+        }
+        
+        @Override
+        public long fingerprint(CharSequence... parts) {
+            return MurmurHash.hash64(parts);
+        }
+    };
+    
+    private final String label;
+    
+    KeyHash(String label) {
+        this.label = label;
+    }
+    
+    public String label() {
+        return this.label;
+    }
+    
+    /**
+     * Return the hash of the concatenated parts as a hexadecimal string.
+     */
+    public String hash(CharSequence... parts) {
+        return toHex(hashValue(parts));
+    }
+    
+    /**
+     * Return the hash of the concatenated parts as two longs. The second is 
+     * 0 for a 64-bit hash.
+     */
+    public abstract long[] hashValue(CharSequence... parts);
+    
+    /**
+     * Return the hexadecimal string for a value returned by hashValue().
+     */
+    public abstract String toHex(long[] hashValue);
+    
+    /**
+     * Return a second hash of the concatenated parts, computed independently
+     * of hashValue(), so that different keys with the same hash value can be
+     * told apart without storing the keys.
+     */
+    public abstract long fingerprint(CharSequence... parts);
+    
+    /**
+     * Return the KeyHash with the specified label, or null if there is none.
+     */
+    public static KeyHash get(String label) {
+        for (KeyHash keyHash : values()) {
+            if (keyHash.label.equals(label)) {
+                return keyHash;
+            }
+        }
+        return null;
+    }
+    
+    private static void appendHex(StringBuilder hex, long value) {
+        String digits = Long.toHexString(value);
+        for (int i = digits.length(); i < 16; i++) {
+            hex.append('0');
+        }
+        hex.append(digits);
+    }
+
+}
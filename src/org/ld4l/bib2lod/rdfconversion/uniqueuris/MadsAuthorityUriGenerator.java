@@ -1,33 +1,25 @@
 package org.ld4l.bib2lod.rdfconversion.uniqueuris;
 
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
+import java.util.List;
+
 import org.apache.jena.query.QuerySolution;
-import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ld4l.bib2lod.rdfconversion.BfProperty;
 import org.ld4l.bib2lod.rdfconversion.BfType;
-import org.ld4l.bib2lod.util.NacoNormalizer;
+import org.ld4l.bib2lod.rdfconversion.QueryTemplate;
+import org.ld4l.bib2lod.rdfconversion.ResourceSubModel;
 
 public class MadsAuthorityUriGenerator extends BfResourceUriGenerator {
 
     private static final Logger LOGGER = 
             LogManager.getLogger(MadsAuthorityUriGenerator.class);
-
-    private static ParameterizedSparqlString RESOURCE_SUBMODEL_PSS = 
-            new ParameterizedSparqlString(
-                    "CONSTRUCT { ?resource ?p1 ?o1 . "
-                    + "} WHERE {  "  
-                    + "?resource ?p1 ?o1 . "
-                    + "} ");
     
-    private ParameterizedSparqlString MADS_AUTHORITY_PSS = 
-            new ParameterizedSparqlString(
+    private static final QueryTemplate MADS_AUTHORITY_QUERY = 
+            new QueryTemplate(
                     "SELECT ?authLabel ?madsScheme WHERE { "
                     + "?auth a " + BfType.MADSRDF_AUTHORITY.sparqlUri() + " . "
                     + "?auth " 
@@ -41,9 +33,13 @@ public class MadsAuthorityUriGenerator extends BfResourceUriGenerator {
         super(localNamespace);
     }
     
+    // Submodel consists only of statements in which the resource is the
+    // subject.
     @Override
-    protected ParameterizedSparqlString getResourceSubModelPss() {
-        return RESOURCE_SUBMODEL_PSS;
+    protected Model getResourceSubModel(Resource resource) {
+        ResourceSubModel subModel = new ResourceSubModel(resource);
+        subModel.addOutgoing();
+        return subModel.toModel();
     }
 
     @Override
@@ -68,21 +64,15 @@ public class MadsAuthorityUriGenerator extends BfResourceUriGenerator {
         // not get URI collisions because the 
         String key = null;
         
-        MADS_AUTHORITY_PSS.setIri("auth", resource.getURI());   
-        Query query = MADS_AUTHORITY_PSS.asQuery();
-        // LOGGER.debug(query.toString());
-        
-        QueryExecution qexec = QueryExecutionFactory.create(
-                query, resource.getModel());
-        ResultSet results = qexec.execSelect();
+        List<QuerySolution> results = MADS_AUTHORITY_QUERY.select(
+                resource.getModel(), "auth", resource);
         
         // There should be exactly one result.
-        while (results.hasNext()) {
-            QuerySolution soln = results.next();
+        for (QuerySolution soln : results) {
             Resource madsScheme = soln.getResource("madsScheme");
             Literal literal = soln.getLiteral("authLabel");
             String authLabel = 
-                    NacoNormalizer.normalize(literal.getLexicalForm());
+                    normalize(literal.getLexicalForm());
             // Combining the scheme with the authoritativeLabel will distinguish
             // the mads:Authority URI from the related bf:Authority URI, which 
             // gets the unique key only from the authoritativeLabel.
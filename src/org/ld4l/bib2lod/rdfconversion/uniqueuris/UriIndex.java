@@ -0,0 +1,494 @@
+package org.ld4l.bib2lod.rdfconversion.uniqueuris;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ld4l.bib2lod.util.MurmurHash;
+
+/**
+ * A persistent, memory-mapped map from the URIs minted by the LC converter to
+ * the unique URIs generated for them. The index is shared by all files and
+ * threads in a run, and is kept on disk between runs, so that when a catalog
+ * is reloaded the unique URIs of resources that have been seen before are
+ * looked up rather than computed again from the resource data.
+ *
+ * NB The index assumes that the data for an LC URI does not change between
+ * runs. If records have been edited, delete the index directory so that the
+ * unique URIs are recomputed. The index records the key hash function and
+ * local namespace the unique URIs were minted with, and can't be opened
+ * with others, so that one catalog doesn't get URIs of two schemes.
+ *
+ * The index consists of two files in the index directory:
+ * - A header followed by a hash table of slots. Each slot holds the 64-bit
+ * MurmurHash of a key and the offset of the entry in the data file. Linear
+ * probing; the table is doubled when it is more than LOAD_FACTOR full, up
+ * to MAX_CAPACITY slots. The table is mapped in pages, since a mapping
+ * can't exceed 2 GB.
+ * - An append-only data file holding the entries (key and value, each as a
+ * length followed by UTF-8 bytes). The data file is mapped in segments, and
+ * an entry never crosses a segment boundary.
+ */
+public class UriIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger(UriIndex.class);
+
+    private static final String SLOTS_FILENAME = "uri-index.slots";
+    private static final String DATA_FILENAME = "uri-index.data";
+
+    private static final long MAGIC = 0x4c44344c55524932L; // "LD4LURI2"
+
+    // Header: magic, capacity, size, end of data, then the key hash label
+    // and the local namespace, each as a length followed by UTF-8 bytes.
+    private static final int HEADER_SIZE = 1024;
+    private static final int SETTINGS_START = 24;
+    private static final int SLOT_SIZE = 16;
+    private static final int PAGE_SHIFT = 22;
+    private static final int PAGE_SLOTS = 1 << PAGE_SHIFT;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.7;
+    private static final int MAX_SIZE = (int) (MAX_CAPACITY * LOAD_FACTOR);
+
+    private static final int SEGMENT_SIZE = 1 << 26;
+
+    private final RandomAccessFile slotsFile;
+    private final FileChannel slotsChannel;
+    private final FileLock lock;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] pages;
+    private int capacity;
+    private int size;
+
+    private final RandomAccessFile dataFile;
+    private final FileChannel dataChannel;
+    private final List<MappedByteBuffer> segments =
+            new ArrayList<MappedByteBuffer>();
+    private long dataEnd;
+
+    // Lookups run concurrently; an insertion, which may resize the table,
+    // excludes them.
+    private final ReadWriteLock tableLock = new ReentrantReadWriteLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private boolean full;
+
+    private final String keyHashLabel;
+    private final String localNamespace;
+
+    /**
+     * Open the index in the specified directory, creating the directory and
+     * the index if they don't exist.
+     * @param directory - the index directory
+     * @param localNamespace - the local namespace of the unique URIs
+     * @param keyHash - the hash function the unique URIs are minted with
+     * @throws IOException if the index can't be opened, if it is in use by
+     * another process, or if it was built with a different key hash
+     * function or local namespace
+     */
+    public UriIndex(String directory, String localNamespace, KeyHash keyHash)
+            throws IOException {
+
+        File dir = new File(directory);
+        if (! dir.isDirectory() && ! dir.mkdirs()) {
+            throw new IOException("Cannot create URI index directory "
+                    + directory + ".");
+        }
+
+        slotsFile = new RandomAccessFile(new File(dir, SLOTS_FILENAME), "rw");
+        slotsChannel = slotsFile.getChannel();
+        lock = slotsChannel.tryLock();
+        if (lock == null) {
+            slotsFile.close();
+            throw new IOException("URI index " + directory
+                    + " is in use by another process.");
+        }
+
+        dataFile = new RandomAccessFile(new File(dir, DATA_FILENAME), "rw");
+        dataChannel = dataFile.getChannel();
+
+        this.keyHashLabel = keyHash.label();
+        this.localNamespace = localNamespace;
+
+        // Mapping the header extends an empty file.
+        boolean isNew = slotsChannel.size() == 0;
+        header = slotsChannel.map(
+                FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+        if (isNew) {
+            if (SETTINGS_START + 8 + keyHashLabel.length()
+                    + localNamespace.getBytes(StandardCharsets.UTF_8).length
+                    > HEADER_SIZE) {
+                closeFiles();
+                throw new IOException("Local namespace " + localNamespace
+                        + " is too long for the URI index header.");
+            }
+            capacity = INITIAL_CAPACITY;
+            size = 0;
+            dataEnd = 0;
+            pages = mapSlots(capacity);
+            writeHeader();
+            writeSettings();
+        } else {
+            if (header.getLong() != MAGIC) {
+                closeFiles();
+                throw new IOException(SLOTS_FILENAME + " in " + directory
+                        + " is not a URI index, or was built by an earlier "
+                        + "version of the converter.");
+            }
+            capacity = header.getInt();
+            size = header.getInt();
+            dataEnd = header.getLong();
+            if (capacity < INITIAL_CAPACITY || capacity > MAX_CAPACITY
+                    || Integer.bitCount(capacity) != 1) {
+                closeFiles();
+                throw new IOException("URI index " + directory
+                        + " has a corrupt header.");
+            }
+            String indexKeyHash = readHeaderString(header);
+            String indexNamespace = readHeaderString(header);
+            if (! keyHashLabel.equals(indexKeyHash)
+                    || ! localNamespace.equals(indexNamespace)) {
+                closeFiles();
+                throw new IOException("URI index " + directory
+                        + " was built with key hash " + indexKeyHash
+                        + " and local namespace " + indexNamespace
+                        + ", not " + keyHashLabel + " and " + localNamespace
+                        + ".");
+            }
+            pages = mapSlots(capacity);
+        }
+
+        long segmentCount = (dataEnd + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        for (long i = 0; i < Math.max(1, segmentCount); i++) {
+            addSegment();
+        }
+
+        LOGGER.info("Opened URI index " + dir.getCanonicalPath() + " with "
+                + size + " entries.");
+    }
+
+    /**
+     * Return the value stored for the key, or null if there is none.
+     */
+    public String get(String key) {
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = MurmurHash.hash64(keyBytes, keyBytes.length);
+
+        tableLock.readLock().lock();
+        try {
+            int slot = findSlot(hash, keyBytes);
+            if (slot < 0) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return readString(getOffset(slot) + 4 + keyBytes.length);
+        } finally {
+            tableLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Store the value for the key. An existing value for the key is not
+     * replaced.
+     */
+    public void put(String key, String value) {
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int entrySize = 8 + keyBytes.length + valueBytes.length;
+        if (entrySize > SEGMENT_SIZE) {
+            LOGGER.warn("Not indexing key " + key + ": entry too large.");
+            return;
+        }
+
+        long hash = MurmurHash.hash64(keyBytes, keyBytes.length);
+
+        tableLock.writeLock().lock();
+        try {
+            // Another thread may have stored the key since it was looked up.
+            int slot = findSlot(hash, keyBytes);
+            if (slot >= 0) {
+                return;
+            }
+            slot = -(slot + 1);
+
+            if (size >= MAX_SIZE) {
+                if (! full) {
+                    LOGGER.warn("URI index is full. New unique URIs are not "
+                            + "indexed.");
+                    full = true;
+                }
+                return;
+            }
+
+            long offset = appendEntry(keyBytes, valueBytes, entrySize);
+            ByteBuffer page = pages[slot >>> PAGE_SHIFT];
+            int pos = slotPosition(slot);
+            page.putLong(pos, hash);
+            page.putLong(pos + 8, offset + 1);
+            size++;
+            if (size > capacity * LOAD_FACTOR && capacity < MAX_CAPACITY) {
+                resize();
+            }
+            writeHeader();
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot write to URI index: "
+                    + e.getMessage());
+        } finally {
+            tableLock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        tableLock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            tableLock.readLock().unlock();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Write any changes to disk and release the index.
+     */
+    public void close() {
+        tableLock.writeLock().lock();
+        try {
+            header.force();
+            for (MappedByteBuffer page : pages) {
+                page.force();
+            }
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            lock.release();
+            slotsFile.close();
+            dataFile.close();
+        } catch (IOException e) {
+            LOGGER.error("ERROR: Cannot close URI index: " + e.getMessage());
+        } finally {
+            tableLock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Return the slot holding the key, or, if the key isn't in the index,
+     * -(slot + 1) for the empty slot where it would be stored.
+     */
+    private int findSlot(long hash, byte[] keyBytes) {
+
+        int mask = capacity - 1;
+        for (int slot = (int) (hash & mask); ; slot = (slot + 1) & mask) {
+            ByteBuffer page = pages[slot >>> PAGE_SHIFT];
+            int pos = slotPosition(slot);
+            long offset = page.getLong(pos + 8);
+            if (offset == 0) {
+                return -(slot + 1);
+            }
+            if (page.getLong(pos) == hash
+                    && keyEquals(offset - 1, keyBytes)) {
+                return slot;
+            }
+        }
+    }
+
+    /*
+     * Return the data file offset of the entry in the slot. Offsets are
+     * stored plus one, so that 0 marks an empty slot.
+     */
+    private long getOffset(int slot) {
+        return pages[slot >>> PAGE_SHIFT].getLong(slotPosition(slot) + 8) - 1;
+    }
+
+    /*
+     * Map the slot table in pages. A table smaller than a page is mapped as
+     * a single smaller page.
+     */
+    private MappedByteBuffer[] mapSlots(int capacity) throws IOException {
+        int pageSlots = Math.min(capacity, PAGE_SLOTS);
+        MappedByteBuffer[] pages = new MappedByteBuffer[capacity / pageSlots];
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = slotsChannel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + (long) i * pageSlots * SLOT_SIZE,
+                    (long) pageSlots * SLOT_SIZE);
+        }
+        return pages;
+    }
+
+    private static int slotPosition(int slot) {
+        return (slot & (PAGE_SLOTS - 1)) * SLOT_SIZE;
+    }
+
+    private void writeHeader() {
+        header.putLong(0, MAGIC);
+        header.putInt(8, capacity);
+        header.putInt(12, size);
+        header.putLong(16, dataEnd);
+    }
+
+    /*
+     * Write the key hash label and local namespace, which don't change once
+     * the index has been created.
+     */
+    private void writeSettings() {
+        header.position(SETTINGS_START);
+        writeHeaderString(keyHashLabel);
+        writeHeaderString(localNamespace);
+    }
+
+    private void writeHeaderString(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        header.putInt(bytes.length);
+        header.put(bytes);
+    }
+
+    /*
+     * Return the next string in the header, or null if the header is
+     * corrupt.
+     */
+    private static String readHeaderString(ByteBuffer header) {
+        int length = header.getInt();
+        if (length < 0 || length > header.remaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void closeFiles() throws IOException {
+        lock.release();
+        slotsFile.close();
+        dataFile.close();
+    }
+
+    /*
+     * Double the capacity of the slot table and reinsert the entries. Only
+     * the hashes and data offsets are needed, so the data file isn't read.
+     */
+    private void resize() throws IOException {
+
+        long[] hashes = new long[size];
+        long[] offsets = new long[size];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            ByteBuffer page = pages[slot >>> PAGE_SHIFT];
+            int pos = slotPosition(slot);
+            long offset = page.getLong(pos + 8);
+            if (offset != 0) {
+                hashes[count] = page.getLong(pos);
+                offsets[count] = offset;
+                count++;
+            }
+        }
+
+        capacity *= 2;
+        pages = mapSlots(capacity);
+        for (ByteBuffer page : pages) {
+            for (int pos = 0; pos < page.capacity(); pos += 8) {
+                page.putLong(pos, 0);
+            }
+        }
+
+        int mask = capacity - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (hashes[i] & mask);
+            while (pages[slot >>> PAGE_SHIFT].getLong(
+                    slotPosition(slot) + 8) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            ByteBuffer page = pages[slot >>> PAGE_SHIFT];
+            int pos = slotPosition(slot);
+            page.putLong(pos, hashes[i]);
+            page.putLong(pos + 8, offsets[i]);
+        }
+
+        LOGGER.debug("Resized URI index to " + capacity + " slots.");
+    }
+
+    private void addSegment() throws IOException {
+        long start = (long) segments.size() * SEGMENT_SIZE;
+        segments.add(dataChannel.map(
+                FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE));
+    }
+
+    private long appendEntry(byte[] keyBytes, byte[] valueBytes,
+            int entrySize) throws IOException {
+
+        // Don't let an entry cross a segment boundary.
+        long remaining = SEGMENT_SIZE - (dataEnd % SEGMENT_SIZE);
+        if (entrySize > remaining) {
+            dataEnd += remaining;
+        }
+        while (dataEnd + entrySize > (long) segments.size() * SEGMENT_SIZE) {
+            addSegment();
+        }
+
+        long offset = dataEnd;
+        ByteBuffer segment = segments.get((int) (offset / SEGMENT_SIZE));
+        int pos = (int) (offset % SEGMENT_SIZE);
+        segment.putInt(pos, keyBytes.length);
+        pos += 4;
+        for (byte b : keyBytes) {
+            segment.put(pos++, b);
+        }
+        segment.putInt(pos, valueBytes.length);
+        pos += 4;
+        for (byte b : valueBytes) {
+            segment.put(pos++, b);
+        }
+        dataEnd += entrySize;
+        return offset;
+    }
+
+    private boolean keyEquals(long offset, byte[] keyBytes) {
+        ByteBuffer segment = segments.get((int) (offset / SEGMENT_SIZE));
+        int pos = (int) (offset % SEGMENT_SIZE);
+        if (segment.getInt(pos) != keyBytes.length) {
+            return false;
+        }
+        pos += 4;
+        for (byte b : keyBytes) {
+            if (segment.get(pos++) != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(long offset) {
+        ByteBuffer segment = segments.get((int) (offset / SEGMENT_SIZE));
+        int pos = (int) (offset % SEGMENT_SIZE);
+        byte[] bytes = new byte[segment.getInt(pos)];
+        pos += 4;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = segment.get(pos++);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.ld4l.bib2lod.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of computed values, safe for use by several threads. The
+ * cache is divided into segments by key hash, each holding the most
+ * recently used entries up to its share of the capacity, so that threads
+ * working on different keys rarely wait on each other. Counts hits and
+ * misses, so the capacity can be sized against the data.
+ *
+ * A value may be computed more than once if two threads miss on the same
+ * key at the same time; the loader should have no side effects.
+ */
+public class LruCache<K, V> {
+
+    private static final int MAX_SEGMENT_COUNT = 16;
+
+    private final Segment<K, V>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LruCache(int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Cache capacity must be a positive integer.");
+        }
+
+        // A power of two, and no more segments than entries.
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENT_COUNT
+                && segmentCount * 2 <= capacity) {
+            segmentCount *= 2;
+        }
+
+        segments = new Segment[segmentCount];
+        int segmentCapacity = (capacity + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<K, V>(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the cached value for the key, computing it with the loader
+     * and caching it if it isn't cached. Null values are not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+        value = loader.apply(key);
+        if (value != null) {
+            synchronized (segment) {
+                segment.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            // Access order, so the eldest entry is the least recently used.
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+
+}
@@ -178,4 +178,267 @@ public final class MurmurHash {
     public static long hash64( final String text, int from, int length) {
         return hash64( text.substring( from, from+length));
     }
+
+
+    /** Generates 64 bit hash from the UTF-8 encoding of a sequence of
+     * character sequences, encoding them as they are hashed rather than
+     * building a String and copying it to a byte array. The hash is that of
+     * the concatenated parts, so it is the same as hash64(String) when the
+     * default charset is UTF-8. Unpaired surrogates are encoded as '?', as
+     * by String.getBytes().
+     * 
+     * @param parts character sequences to hash
+     * @return 64 bit hash of the concatenated parts
+     */
+    public static long hash64( final CharSequence... parts) {
+        Hash64 hash = new Hash64( utf8Length( parts), 0xe17a1465);
+        encodeUtf8( parts, hash);
+        return hash.finish();
+    }
+
+
+    /** Generates 128 bit MurmurHash3 (x64_128 variant) from byte array of 
+     * the given length and seed.
+     * 
+     * @param data byte array to hash
+     * @param length length of the array to hash
+     * @param seed initial seed value
+     * @return 128 bit hash of the given array, as the two 64 bit halves h1
+     * and h2 of the reference implementation
+     */
+    public static long[] hash128( final byte[] data, int length, int seed) {
+        Hash128 hash = new Hash128( seed);
+        for (int i=0; i<length; i++) {
+            hash.put( data[i]);
+        }
+        return hash.finish();
+    }
+
+
+    /** Generates 128 bit MurmurHash3 (x64_128 variant) from the UTF-8 
+     * encoding of a sequence of character sequences, with seed 0.
+     * 
+     * @param parts character sequences to hash
+     * @return 128 bit hash of the concatenated parts, as h1 and h2
+     */
+    public static long[] hash128( final CharSequence... parts) {
+        Hash128 hash = new Hash128( 0);
+        encodeUtf8( parts, hash);
+        return hash.finish();
+    }
+
+
+    /* Number of bytes in the UTF-8 encoding of the concatenated parts. */
+    private static int utf8Length( final CharSequence[] parts) {
+        int length = 0;
+        for (int p=0; p<parts.length; p++) {
+            CharSequence text = parts[p];
+            int textLength = text.length();
+            for (int i=0; i<textLength; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (! Character.isSurrogate(c)) {
+                    length += 3;
+                } else if (Character.isHighSurrogate(c) 
+                        && Character.isLowSurrogate(
+                                charAfter( parts, p, i))) {
+                    // The low surrogate is counted as a single byte, so 
+                    // that a pair split across parts needs no lookbehind.
+                    length += 3;
+                } else {
+                    length += 1;
+                }
+            }
+        }
+        return length;
+    }
+
+
+    /* Feeds the UTF-8 encoding of the concatenated parts to a hash. A 
+     * surrogate pair may be split across two parts. */
+    private static void encodeUtf8( final CharSequence[] parts, 
+            ByteSink sink) {
+        char high = 0;
+        for (int p=0; p<parts.length; p++) {
+            CharSequence text = parts[p];
+            int textLength = text.length();
+            for (int i=0; i<textLength; i++) {
+                char c = text.charAt(i);
+                if (high != 0) {
+                    int cp = Character.toCodePoint( high, c);
+                    sink.put( 0xf0 | (cp >> 18));
+                    sink.put( 0x80 | ((cp >> 12) & 0x3f));
+                    sink.put( 0x80 | ((cp >> 6) & 0x3f));
+                    sink.put( 0x80 | (cp & 0x3f));
+                    high = 0;
+                } else if (c < 0x80) {
+                    sink.put( c);
+                } else if (c < 0x800) {
+                    sink.put( 0xc0 | (c >> 6));
+                    sink.put( 0x80 | (c & 0x3f));
+                } else if (! Character.isSurrogate(c)) {
+                    sink.put( 0xe0 | (c >> 12));
+                    sink.put( 0x80 | ((c >> 6) & 0x3f));
+                    sink.put( 0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) 
+                        && Character.isLowSurrogate(
+                                charAfter( parts, p, i))) {
+                    high = c;
+                } else {
+                    sink.put( '?');
+                }
+            }
+        }
+    }
+
+
+    /* The character following position i of part p in the concatenated 
+     * parts, or 0 at the end. */
+    private static char charAfter( final CharSequence[] parts, int p, int i) {
+        if (i+1 < parts[p].length()) {
+            return parts[p].charAt(i+1);
+        }
+        for (p++; p<parts.length; p++) {
+            if (parts[p].length() > 0) {
+                return parts[p].charAt(0);
+            }
+        }
+        return 0;
+    }
+
+
+    private interface ByteSink {
+        void put( int b);
+    }
+
+
+    /* Murmur hash 2.0 64 bit state, fed one byte at a time. The result is
+     * the same as hash64(byte[], int, int) on the same bytes. */
+    private static final class Hash64 implements ByteSink {
+        private static final long M = 0xc6a4a7935bd1e995L;
+        private static final int R = 47;
+
+        private long h;
+        private long k;
+        private int count;
+
+        Hash64( int length, int seed) {
+            h = (seed&0xffffffffl)^(length*M);
+        }
+
+        @Override
+        public void put( int b) {
+            k |= (long)(b&0xff) << (count << 3);
+            if (++count == 8) {
+                k *= M;
+                k ^= k >>> R;
+                k *= M;
+                h ^= k;
+                h *= M;
+                k = 0;
+                count = 0;
+            }
+        }
+
+        long finish() {
+            if (count > 0) {
+                h ^= k;
+                h *= M;
+            }
+            h ^= h >>> R;
+            h *= M;
+            h ^= h >>> R;
+            return h;
+        }
+    }
+
+
+    /* MurmurHash3 x64_128 state, fed one byte at a time. */
+    private static final class Hash128 implements ByteSink {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private long h1;
+        private long h2;
+        private long k1;
+        private long k2;
+        private int count;
+        private long length;
+
+        Hash128( int seed) {
+            h1 = seed&0xffffffffl;
+            h2 = seed&0xffffffffl;
+        }
+
+        @Override
+        public void put( int b) {
+            long v = b&0xff;
+            if (count < 8) {
+                k1 |= v << (count << 3);
+            } else {
+                k2 |= v << ((count - 8) << 3);
+            }
+            length++;
+            if (++count == 16) {
+                h1 ^= mixK1( k1);
+                h1 = Long.rotateLeft( h1, 27);
+                h1 += h2;
+                h1 = h1*5+0x52dce729;
+
+                h2 ^= mixK2( k2);
+                h2 = Long.rotateLeft( h2, 31);
+                h2 += h1;
+                h2 = h2*5+0x38495ab5;
+
+                k1 = 0;
+                k2 = 0;
+                count = 0;
+            }
+        }
+
+        long[] finish() {
+            if (count > 8) {
+                h2 ^= mixK2( k2);
+            }
+            if (count > 0) {
+                h1 ^= mixK1( k1);
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64( h1);
+            h2 = fmix64( h2);
+            h1 += h2;
+            h2 += h1;
+            return new long[] { h1, h2 };
+        }
+
+        private static long mixK1( long k) {
+            k *= C1;
+            k = Long.rotateLeft( k, 31);
+            k *= C2;
+            return k;
+        }
+
+        private static long mixK2( long k) {
+            k *= C2;
+            k = Long.rotateLeft( k, 33);
+            k *= C1;
+            return k;
+        }
+
+        private static long fmix64( long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
 }
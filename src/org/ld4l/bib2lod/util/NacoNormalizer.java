@@ -13,12 +13,11 @@ package org.ld4l.bib2lod.util;
  */
 
 import java.text.CharacterIterator;
-import java.text.StringCharacterIterator;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -145,48 +144,179 @@ public class NacoNormalizer {
         CONVERT.put('\u00df', "SS"); // eszett  
     }
         
+    // The rules applied to each character of the BMP: the result of 
+    // converting the character to uppercase in the default locale, and then
+    // applying the DELETE, TO_WHITESPACE and CONVERT rules to the uppercase 
+    // characters. Null if the character is unchanged. The comma, whose
+    // handling depends on its position, and surrogates are never looked up.
+    static final private String[] NORMALIZED = 
+            new String[Character.MAX_VALUE + 1];
+    
+    // The locale that NORMALIZED was built for.
+    static final private Locale TABLE_LOCALE = Locale.getDefault();
+    
+    static {
+        for (int i = 0; i <= Character.MAX_VALUE; i++) {
+            char c = (char) i;
+            if (Character.isSurrogate(c)) {
+                continue;
+            }
+            String original = String.valueOf(c);
+            String upper = original.toUpperCase(TABLE_LOCALE);
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < upper.length(); j++) {
+                appendRule(sb, upper.charAt(j));
+            }
+            String normalized = sb.toString();
+            if (! normalized.equals(original)) {
+                NORMALIZED[i] = normalized;
+            }
+        }
+    }
+    
+    /*
+     * Appends the result of applying the DELETE, TO_WHITESPACE and CONVERT
+     * rules to an uppercase character. Not used for the comma.
+     */
+    static private void appendRule(StringBuilder sb, char c) {
+        if (ArrayUtils.contains(DELETE, c)) {
+            // do nothing
+        } else if (ArrayUtils.contains(TO_WHITESPACE, c)) {
+            sb.append(' ');
+        } else if (CONVERT.containsKey(c)) {
+            sb.append(CONVERT.get(c));
+        } else {
+            sb.append(c);
+        }
+    }
+    
     static public String normalize(String s) {
         
         if (s == null) {
             return s;
         }
         
-        StringBuilder sb = new StringBuilder();
+        return normalize(s, new StringBuilder(s.length() + 8));
+    }
+    
+    /**
+     * Normalizes the string, using the buffer as working storage. Callers 
+     * that normalize many strings can pass the same buffer each time, to 
+     * avoid allocating a new one. The buffer's contents are replaced.
+     */
+    static public String normalize(String s, StringBuilder buffer) {
+        
+        if (s == null) {
+            return s;
+        }
+        
+        buffer.setLength(0);
         
-        // Convert to uppercase first in order to simplify the CONVERT map. 
-        // NACO rules call for conversion to uppercase anyway.
-        s = s.toUpperCase();
+        // The table applies the uppercase conversion character by character,
+        // which is the same as converting the whole string, except for 
+        // surrogate pairs, and in Lithuanian, where the conversion of some 
+        // characters depends on the characters around them.
+        Locale locale = Locale.getDefault();
+        if (! locale.equals(TABLE_LOCALE) 
+                || locale.getLanguage().equals("lt")) {
+            return normalizeUppercase(s.toUpperCase(), buffer);
+        }
         
-        CharacterIterator it = new StringCharacterIterator(s);
         boolean firstCommaFound = false;
-        for (char c = it.first(); c != CharacterIterator.DONE; c = it.next()) {
-            if (ArrayUtils.contains(DELETE, c)) {
-              // do nothing
-            } else if (ArrayUtils.contains(TO_WHITESPACE, c)) {
-                sb.append(' ');
-            } else if (CONVERT.containsKey(c)) {
-                sb.append(CONVERT.get(c));
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == CharacterIterator.DONE) {
+                // Normalization has always ended at this noncharacter, which
+                // ended the iteration over the string.
+                break;
             } else if (c == ',') {
                 if (!firstCommaFound) {
-                    sb.append(c);
+                    buffer.append(c);
                     firstCommaFound = true;
                 } else {
-                    sb.append(' ');
+                    append(buffer, ' ');
                 }
+            } else if (Character.isSurrogate(c)) {
+                return normalizeUppercase(s.toUpperCase(), buffer);                
             } else {
-                sb.append(c);
+                String normalized = NORMALIZED[c];
+                if (normalized == null) {
+                    append(buffer, c);
+                } else {
+                    for (int j = 0; j < normalized.length(); j++) {
+                        append(buffer, normalized.charAt(j));
+                    }
+                }
             }
         }
+
+        return strip(buffer);
+    }
+    
+    /*
+     * Normalizes a string that has already been converted to uppercase, 
+     * without the table.
+     */
+    static private String normalizeUppercase(String s, StringBuilder buffer) {
         
-        String normalized = sb.toString();
-        
-        // Collapse sequences of whitespace
-        normalized = normalized.replaceAll("\\s+", " ");
-        
-        // Trim leading and trailing whitespace
-        normalized = StringUtils.strip(normalized);
+        buffer.setLength(0);
+        StringBuilder sb = new StringBuilder();
+        boolean firstCommaFound = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == CharacterIterator.DONE) {
+                // Normalization has always ended at this noncharacter, which
+                // ended the iteration over the string.
+                break;
+            } else if (c == ',') {
+                if (!firstCommaFound) {
+                    buffer.append(c);
+                    firstCommaFound = true;
+                } else {
+                    append(buffer, ' ');
+                }
+            } else {
+                sb.setLength(0);
+                appendRule(sb, c);
+                for (int j = 0; j < sb.length(); j++) {
+                    append(buffer, sb.charAt(j));
+                }
+            }
+        }
         
-        return normalized;
+        return strip(buffer);
+    }
+    
+    /*
+     * Appends a character, collapsing sequences of whitespace (as matched by 
+     * the regular expression \s) into a single space.
+     */
+    static private void append(StringBuilder buffer, char c) {
+        if (c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' 
+                || c == '\r') {
+            int length = buffer.length();
+            if (length == 0 || buffer.charAt(length - 1) != ' ') {
+                buffer.append(' ');
+            }
+        } else {
+            buffer.append(c);
+        }
+    }
+    
+    /*
+     * Returns the contents of the buffer without leading and trailing 
+     * whitespace, as StringUtils.strip() does.
+     */
+    static private String strip(StringBuilder buffer) {
+        int start = 0;
+        int end = buffer.length();
+        while (start < end && Character.isWhitespace(buffer.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        return buffer.substring(start, end);
     }
     
 }
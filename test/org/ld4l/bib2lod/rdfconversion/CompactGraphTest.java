@@ -0,0 +1,101 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.shared.AddDeniedException;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompactGraphTest {
+
+    private static final String NS = "http://example.org/";
+
+    @Test
+    public void testFindMatchesDefaultGraph() {
+
+        List<Node> subjects = new ArrayList<Node>();
+        List<Node> predicates = new ArrayList<Node>();
+        for (int i = 0; i < 5; i++) {
+            subjects.add(NodeFactory.createURI(NS + "s" + i));
+            predicates.add(NodeFactory.createURI(NS + "p" + i));
+        }
+        List<Node> objects = new ArrayList<Node>(subjects);
+        objects.add(NodeFactory.createLiteral("literal"));
+        objects.add(NodeFactory.createBlankNode());
+
+        Graph expected = Factory.createDefaultGraph();
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        // A deterministic scattering of triples, with each one sent twice.
+        for (int i = 0; i < 200; i++) {
+            Triple triple = Triple.create(subjects.get(i * 7 % 5),
+                    predicates.get(i * 3 % 5), objects.get(i * 11 % 7));
+            expected.add(triple);
+            builder.triple(triple);
+            builder.triple(triple);
+        }
+        Graph graph = builder.build();
+
+        Assert.assertEquals(expected.size(), graph.size());
+
+        List<Node> patterns = new ArrayList<Node>(objects);
+        patterns.addAll(predicates);
+        patterns.add(Node.ANY);
+        patterns.add(NodeFactory.createURI(NS + "absent"));
+        for (Node s : patterns) {
+            for (Node p : patterns) {
+                for (Node o : patterns) {
+                    Assert.assertEquals(s + " " + p + " " + o,
+                            expected.find(s, p, o).toSet(),
+                            graph.find(s, p, o).toSet());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testModelQueries() {
+
+        CompactGraph.Builder builder = new CompactGraph.Builder();
+        Node work = NodeFactory.createURI(NS + "work");
+        Node instance = NodeFactory.createURI(NS + "instance");
+        Node instanceOf = NodeFactory.createURI(NS + "instanceOf");
+        builder.triple(Triple.create(
+                work, RDF.type.asNode(), BfType.BF_WORK.type().asNode()));
+        builder.triple(Triple.create(instance, RDF.type.asNode(),
+                BfType.BF_INSTANCE.type().asNode()));
+        builder.triple(Triple.create(instance, instanceOf, work));
+        Model model = ModelFactory.createModelForGraph(builder.build());
+
+        Set<Resource> works = new HashSet<Resource>(model
+                .listResourcesWithProperty(RDF.type, BfType.BF_WORK.type())
+                .toList());
+        Assert.assertEquals(1, works.size());
+        Assert.assertEquals(NS + "work", works.iterator().next().getURI());
+
+        Resource instanceResource = model.getResource(NS + "instance");
+        Assert.assertEquals(2, instanceResource.listProperties().toList().size());
+        Assert.assertEquals(3, model.listStatements().toList().size());
+    }
+
+    @Test(expected = AddDeniedException.class)
+    public void testAddDenied() {
+
+        Graph graph = new CompactGraph.Builder().build();
+        Assert.assertTrue(graph.isEmpty());
+        graph.add(Triple.create(NodeFactory.createURI(NS + "s"),
+                RDF.type.asNode(), NodeFactory.createURI(NS + "o")));
+    }
+
+}
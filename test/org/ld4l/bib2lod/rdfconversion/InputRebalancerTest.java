@@ -0,0 +1,34 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InputRebalancerTest {
+
+    @Test
+    public void testRelabelBnodes() {
+
+        Assert.assertEquals("_:f3_b1 <http://example.org/p> _:f3_b2 .",
+                InputRebalancer.relabelBnodes(
+                        "_:b1 <http://example.org/p> _:b2 .", "_:f3_"));
+        Assert.assertEquals("<http://example.org/s> <http://example.org/p> "
+                + "_:f3_b2.", InputRebalancer.relabelBnodes(
+                        "<http://example.org/s> <http://example.org/p> _:b2.",
+                        "_:f3_"));
+    }
+
+    @Test
+    public void testLiteralsAndUrisUnchanged() {
+
+        String literal = "_:b1 <http://example.org/p> \"_:b2 text\" .";
+        Assert.assertEquals("_:f3_b1 <http://example.org/p> \"_:b2 text\" .",
+                InputRebalancer.relabelBnodes(literal, "_:f3_"));
+
+        // A URI with a space, which RdfCleaner encodes later.
+        String uri = "<http://example.org/a b> <http://example.org/p> _:b2 .";
+        Assert.assertEquals(
+                "<http://example.org/a b> <http://example.org/p> _:f3_b2 .",
+                InputRebalancer.relabelBnodes(uri, "_:f3_"));
+    }
+
+}
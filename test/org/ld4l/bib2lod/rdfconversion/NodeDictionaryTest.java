@@ -0,0 +1,49 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NodeDictionaryTest {
+
+    @Test
+    public void testVocabularyIdsAreFixed() {
+
+        NodeDictionary dictionary1 = new NodeDictionary();
+        NodeDictionary dictionary2 = new NodeDictionary();
+        dictionary1.id(NodeFactory.createURI("http://example.org/a"));
+
+        Node work = BfType.BF_WORK.type().asNode();
+        int id = NodeDictionary.vocabularyId(work);
+        Assert.assertTrue(id >= 0 && id < NodeDictionary.vocabularySize());
+        Assert.assertEquals(id, dictionary1.id(work));
+        Assert.assertEquals(id, dictionary2.lookUp(work));
+        Assert.assertEquals(NodeDictionary.RDF_TYPE,
+                dictionary2.lookUp(RDF.type.asNode()));
+    }
+
+    @Test
+    public void testFileNodes() {
+
+        NodeDictionary dictionary = new NodeDictionary();
+        int vocabularySize = NodeDictionary.vocabularySize();
+        Node literal = NodeFactory.createLiteral("Twain, Mark");
+        Assert.assertEquals(-1, dictionary.lookUp(literal));
+        Assert.assertEquals(-1, NodeDictionary.vocabularyId(literal));
+
+        // Enough nodes to grow the dictionary.
+        for (int i = 0; i < 5000; i++) {
+            Node node = NodeFactory.createURI("http://example.org/n" + i);
+            Assert.assertEquals(vocabularySize + i, dictionary.id(node));
+        }
+        for (int i = 0; i < 5000; i++) {
+            Node node = NodeFactory.createURI("http://example.org/n" + i);
+            Assert.assertEquals(vocabularySize + i, dictionary.lookUp(node));
+            Assert.assertEquals(node, dictionary.node(vocabularySize + i));
+        }
+        Assert.assertEquals(vocabularySize + 5000, dictionary.size());
+    }
+
+}
@@ -1,7 +1,11 @@
 package org.ld4l.bib2lod.rdfconversion;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
@@ -55,9 +59,70 @@ public class RdfCleanerTest {
         line = cleaner.fixLocalNames(line);
         
         Assert.assertEquals(expected, line);
+
+    }
+
+    @Test
+    public void testFixLocalNameReturnsUnchangedLine() {
+
+        String line = "<http://draft.ld4l.org/cornell/n120632> "
+                + "<http://bibframe.org/vocab/hasInstance> "
+                + "<http://draft.ld4l.org/cornell/instance17> . ";
+
+        Assert.assertSame(line, cleaner.fixLocalNames(line));
+    }
+
+    @Test
+    public void testCleanLineFixesLocalNames()throws IOException {
+        
+        String line = "<http://draft.ld4l.org/cornell/120632> "
+                + "<http://bibframe.org/vocab/hasInstance> "
+                + "<http://draft.ld4l.org/cornell/120632instance17> . ";
         
+        String expected = "<http://draft.ld4l.org/cornell/n120632> "
+                + "<http://bibframe.org/vocab/hasInstance> "
+                + "<http://draft.ld4l.org/cornell/n120632instance17> . \n";
+        
+        Assert.assertEquals(expected, cleanLine(line));
     }
     
-
+    @Test
+    public void testCleanLineRemovesEmptyObject() throws IOException {
+        
+        String line = "_:bnode131cornell72 "
+                + "<http://www.loc.gov/mads/rdf/v1#isMemberOfMADSScheme> <> . ";
+        
+        Assert.assertEquals("\n", cleanLine(line));
+    }
+    
+    @Test
+    public void testCleanLineLeavesUriToEncode() throws IOException {
+        
+        String line = "<http://draft.ld4l.org/cornell/120632> "
+                + "<http://bibframe.org/vocab/place> "
+                + "<http://id.loc.gov/vocabulary/organizations/"
+                + "*cleveland st univ lib*> . ";
+        
+        Assert.assertNull(cleanLine(line));
+    }
+    
+    /*
+     * Returns the line as cleaned by RdfCleaner.cleanLine(), or null if the
+     * line must be processed as a string.
+     */
+    private String cleanLine(String line) throws IOException {
+        
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CleanedLineWriter writer = 
+                new CleanedLineWriter(null, Channels.newChannel(out));
+        ByteBuffer window = ByteBuffer.wrap(bytes);
+        writer.setWindow(window, 0);
+        if (! cleaner.cleanLine(window, 0, bytes.length, writer)) {
+            return null;
+        }
+        writer.flush();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
 
 }
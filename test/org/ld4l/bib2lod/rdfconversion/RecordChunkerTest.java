@@ -0,0 +1,84 @@
+package org.ld4l.bib2lod.rdfconversion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecordChunkerTest {
+
+    private static final String NS = "http://example.org/";
+
+    @Test
+    public void testRecordNumber() {
+        Assert.assertEquals("102063",
+                RdfProcessor.getRecordNumber("n102063instance17"));
+        Assert.assertEquals("102063",
+                RdfProcessor.getRecordNumber("102063person"));
+        Assert.assertEquals("102063",
+                RdfProcessor.getRecordNumber("n102063-1instance"));
+        Assert.assertEquals("7", RdfProcessor.getRecordNumber("n7"));
+        Assert.assertNull(RdfProcessor.getRecordNumber("nperson"));
+        Assert.assertNull(RdfProcessor.getRecordNumber(""));
+    }
+
+    @Test
+    public void testChunksEndAtRecordBoundaries() {
+
+        List<Graph> chunks = new ArrayList<Graph>();
+        RecordChunker chunker = new RecordChunker(NS, 3,
+                new RecordChunker.ChunkHandler() {
+            @Override
+            public StreamRDF startChunk() {
+                Graph chunk = Factory.createDefaultGraph();
+                chunks.add(chunk);
+                return StreamRDFLib.graph(chunk);
+            }
+            @Override
+            public void endChunk(int chunkNumber) {
+                Assert.assertEquals(chunks.size(), chunkNumber);
+            }
+        });
+
+        Node bnode = NodeFactory.createBlankNode();
+        Node external = NodeFactory.createURI("http://id.loc.gov/x");
+        chunker.start();
+        // Record 1 has 4 triples, including those of a blank node and an
+        // external resource, so the chunk ends when record 2 starts.
+        send(chunker, uri("n1work"), uri("n1instance1"));
+        send(chunker, uri("n1instance1"), bnode);
+        send(chunker, bnode, external);
+        send(chunker, external, uri("n1work"));
+        // Records 2 and 3 together reach the chunk size.
+        send(chunker, uri("n2work"), uri("n2instance1"));
+        send(chunker, uri("n3work"), uri("n3instance1"));
+        send(chunker, uri("n3instance1"), uri("n3work"));
+        send(chunker, uri("n4work"), uri("n4instance1"));
+        chunker.finish();
+        chunker.finish();
+
+        Assert.assertEquals(3, chunker.chunkCount());
+        Assert.assertEquals(3, chunks.size());
+        Assert.assertEquals(4, chunks.get(0).size());
+        Assert.assertEquals(3, chunks.get(1).size());
+        Assert.assertEquals(1, chunks.get(2).size());
+    }
+
+    private static Node uri(String localName) {
+        return NodeFactory.createURI(NS + localName);
+    }
+
+    private static void send(StreamRDF stream, Node subject, Node object) {
+        stream.triple(Triple.create(subject, RDF.value.asNode(), object));
+    }
+
+}
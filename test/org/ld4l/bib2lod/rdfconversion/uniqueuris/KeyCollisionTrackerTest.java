@@ -0,0 +1,78 @@
+package org.ld4l.bib2lod.rdfconversion.uniqueuris;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KeyCollisionTrackerTest {
+
+    private static final String NAMESPACE = "http://draft.ld4l.org/cornell/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameKeyIsNotCollision() {
+
+        KeyCollisionTracker tracker = new KeyCollisionTracker();
+        String key = "BF_PERSONTWAIN, MARK 1835 1910";
+        long[] hashValue = KeyHash.MURMUR64.hashValue(key);
+        long fingerprint = KeyHash.MURMUR64.fingerprint(key);
+        String localName = "n" + KeyHash.MURMUR64.toHex(hashValue);
+        Assert.assertFalse(tracker.add(hashValue, fingerprint, localName, key, 
+                NAMESPACE + "n102063person16"));
+        Assert.assertFalse(tracker.add(hashValue, fingerprint, localName, key, 
+                NAMESPACE + "n216314person8"));
+        Assert.assertEquals(1, tracker.size());
+        Assert.assertEquals(0, tracker.collisionCount());
+    }
+
+    @Test
+    public void testCollisionIsReported() throws IOException {
+
+        KeyCollisionTracker tracker = new KeyCollisionTracker();
+        long[] hashValue = { 0x5b3eaa04b8204305L, 0 };
+        Assert.assertFalse(tracker.add(hashValue, 1, "n5b3eaa04b8204305", 
+                "BF_PERSONTWAIN, MARK", NAMESPACE + "n102063person16"));
+        Assert.assertTrue(tracker.add(hashValue, 2, "n5b3eaa04b8204305", 
+                "BF_PERSONRAILTON, STEPHEN", NAMESPACE + "n216314person8"));
+        // Reported once
+        Assert.assertTrue(tracker.add(hashValue, 2, "n5b3eaa04b8204305", 
+                "BF_PERSONRAILTON, STEPHEN", NAMESPACE + "n200379person3"));
+        Assert.assertEquals(1, tracker.collisionCount());
+
+        File report = folder.newFile("collisions.txt");
+        tracker.writeReport(report);
+        List<String> lines = 
+                Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(3, lines.size());
+        Assert.assertEquals("n5b3eaa04b8204305\tBF_PERSONRAILTON, STEPHEN\t" 
+                + NAMESPACE + "n216314person8", lines.get(2));
+    }
+
+    @Test
+    public void testTableGrows() {
+
+        KeyCollisionTracker tracker = new KeyCollisionTracker();
+        // Each key twice, so that keys are found again after the table grows
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < 200000; i++) {
+                String key = "BF_TOPIC" + i;
+                long[] hashValue = KeyHash.MURMUR128.hashValue(key);
+                Assert.assertFalse(tracker.add(hashValue, 
+                        KeyHash.MURMUR128.fingerprint(key), 
+                        KeyHash.MURMUR128.toHex(hashValue), key, null));
+            }
+        }
+        Assert.assertEquals(200000, tracker.size());
+        Assert.assertEquals(0, tracker.collisionCount());
+    }
+
+}
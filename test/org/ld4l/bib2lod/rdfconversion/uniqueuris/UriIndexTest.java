@@ -0,0 +1,141 @@
+package org.ld4l.bib2lod.rdfconversion.uniqueuris;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UriIndexTest {
+
+    private static final String NAMESPACE = "http://draft.ld4l.org/cornell/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetMissingKey() throws IOException {
+
+        UriIndex index = open(folder.getRoot().toString());
+        Assert.assertNull(index.get(NAMESPACE + "n102063instance16"));
+        index.close();
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+
+        UriIndex index = open(folder.getRoot().toString());
+        index.put(NAMESPACE + "n102063instance16",
+                NAMESPACE + "n5b3eaa04b8204305");
+        Assert.assertEquals(NAMESPACE + "n5b3eaa04b8204305",
+                index.get(NAMESPACE + "n102063instance16"));
+        index.close();
+    }
+
+    @Test
+    public void testExistingValueNotReplaced() throws IOException {
+
+        UriIndex index = open(folder.getRoot().toString());
+        index.put(NAMESPACE + "n102063", NAMESPACE + "n1");
+        index.put(NAMESPACE + "n102063", NAMESPACE + "n2");
+        Assert.assertEquals(NAMESPACE + "n1", index.get(NAMESPACE + "n102063"));
+        Assert.assertEquals(1, index.size());
+        index.close();
+    }
+
+    @Test
+    public void testIndexSurvivesReopening() throws IOException {
+
+        String dir = folder.getRoot().toString();
+        UriIndex index = open(dir);
+        index.put(NAMESPACE + "n102063person20", "http://id.worldcat.org/fast/1");
+        index.close();
+
+        index = open(dir);
+        Assert.assertEquals(1, index.size());
+        Assert.assertEquals("http://id.worldcat.org/fast/1",
+                index.get(NAMESPACE + "n102063person20"));
+        index.close();
+    }
+
+    @Test
+    public void testIndexGrows() throws IOException {
+
+        String dir = folder.getRoot().toString();
+        int count = 200000;
+        UriIndex index = open(dir);
+        for (int i = 0; i < count; i++) {
+            index.put(NAMESPACE + "n" + i + "work", NAMESPACE + "nw" + i);
+        }
+        index.close();
+
+        index = open(dir);
+        Assert.assertEquals(count, index.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(NAMESPACE + "nw" + i,
+                    index.get(NAMESPACE + "n" + i + "work"));
+        }
+        index.close();
+    }
+
+    @Test
+    public void testConcurrentPutAndGet() throws Exception {
+
+        UriIndex index = open(folder.getRoot().toString());
+        int count = 50000;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            // Each thread stores every key, so that the threads race to
+            // insert the same keys and to resize the table.
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    String key = NAMESPACE + "n" + i + "work";
+                    if (index.get(key) == null) {
+                        index.put(key, NAMESPACE + "nw" + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(count, index.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(NAMESPACE + "nw" + i,
+                    index.get(NAMESPACE + "n" + i + "work"));
+        }
+        index.close();
+    }
+
+    @Test
+    public void testIndexWithOtherSettingsRefused() throws IOException {
+
+        String dir = folder.getRoot().toString();
+        open(dir).close();
+
+        try {
+            new UriIndex(dir, NAMESPACE, KeyHash.MURMUR128).close();
+            Assert.fail("Opened an index built with another key hash.");
+        } catch (IOException e) {
+            // Expected
+        }
+        try {
+            new UriIndex(dir, "http://draft.ld4l.org/harvard/",
+                    KeyHash.MURMUR64).close();
+            Assert.fail("Opened an index built with another namespace.");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        // The index is still usable with its own settings.
+        open(dir).close();
+    }
+
+    private static UriIndex open(String dir) throws IOException {
+        return new UriIndex(dir, NAMESPACE, KeyHash.MURMUR64);
+    }
+
+}
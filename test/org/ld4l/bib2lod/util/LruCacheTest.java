@@ -0,0 +1,44 @@
+package org.ld4l.bib2lod.util;
+
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    private static final Function<String, String> UPPER_CASE = 
+            s -> s.toUpperCase();
+    
+    @Test
+    public void testGetCountsHitsAndMisses() {
+        
+        LruCache<String, String> cache = new LruCache<String, String>(10);
+        Assert.assertEquals("TWAIN", cache.get("Twain", UPPER_CASE));
+        Assert.assertEquals("TWAIN", cache.get("Twain", UPPER_CASE));
+        Assert.assertEquals("RAILTON", cache.get("Railton", UPPER_CASE));
+        Assert.assertEquals(1, cache.hits());
+        Assert.assertEquals(2, cache.misses());
+        Assert.assertEquals(2, cache.size());
+    }
+    
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        
+        // A single segment
+        LruCache<String, String> cache = new LruCache<String, String>(1);
+        cache.get("Twain", UPPER_CASE);
+        cache.get("Railton", UPPER_CASE);
+        Assert.assertEquals(1, cache.size());
+        cache.get("Railton", UPPER_CASE);
+        Assert.assertEquals(1, cache.hits());
+        cache.get("Twain", UPPER_CASE);
+        Assert.assertEquals(3, cache.misses());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new LruCache<String, String>(0);
+    }
+
+}
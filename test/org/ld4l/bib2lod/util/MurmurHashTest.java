@@ -0,0 +1,46 @@
+package org.ld4l.bib2lod.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MurmurHashTest {
+
+    @Test
+    public void testHash64PartsEqualsHashOfConcatenation() {
+        
+        String key = "BF_PERSONTWAIN, MARK 1835 1910";
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = MurmurHash.hash64(bytes, bytes.length);
+        Assert.assertEquals(hash, 
+                MurmurHash.hash64("BF_PERSON", "TWAIN, MARK 1835 1910"));
+        Assert.assertEquals(hash, MurmurHash.hash64("BF_PERSON", 
+                new StringBuilder("TWAIN, MARK "), "", "1835 1910"));
+    }
+    
+    @Test
+    public void testHash64PartsEncodesUtf8() {
+        
+        // Two-byte, three-byte, and four-byte characters, and a surrogate 
+        // pair split between parts
+        String key = "\u00c6ro \u4e2d\u6587 \ud835\udc00\ud835\udc01";
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(MurmurHash.hash64(bytes, bytes.length), 
+                MurmurHash.hash64(key.substring(0, 8), key.substring(8)));
+    }
+    
+    @Test
+    public void testHash128() {
+        
+        // Reference MurmurHash3_x64_128 with seed 0
+        byte[] bytes = "The quick brown fox jumps over the lazy dog"
+                .getBytes(StandardCharsets.UTF_8);
+        long[] hash = MurmurHash.hash128(bytes, bytes.length, 0);
+        Assert.assertEquals(0xe34bbc7bbc071b6cL, hash[0]);
+        Assert.assertEquals(0x7a433ca9c49a9347L, hash[1]);
+        Assert.assertArrayEquals(hash, MurmurHash.hash128(
+                "The quick brown fox ", "jumps over the lazy dog"));
+    }
+
+}
@@ -52,6 +52,35 @@ public class NacoNormalizerTest {
         Assert.assertEquals(normalizedName, name);          
     }
     
+    @Test
+    public void testNormalizeCollapsesWhitespace() {
+
+        String normalizedName = "MARK TWAIN PROJECT";
+        String name = " Mark \t Twain -- [Project] ";
+        name = NacoNormalizer.normalize(name);
+        Assert.assertEquals(normalizedName, name);
+    }
+
+    @Test
+    public void testNormalizeConvertsCharacters() {
+
+        String normalizedName = "STRASSE AEROPLANE4 LODZ";
+        // Eszett, ae digraph, superscript 4, Polish l
+        String name = "Stra\u00dfe \u00c6roplane\u2074 \u0141odz";
+        name = NacoNormalizer.normalize(name);
+        Assert.assertEquals(normalizedName, name);
+    }
+
+    @Test
+    public void testNormalizeWithBuffer() {
+
+        StringBuilder buffer = new StringBuilder();
+        Assert.assertEquals("TWAIN, MARK 1835 1910",
+                NacoNormalizer.normalize("Twain, Mark, 1835-1910", buffer));
+        Assert.assertEquals("RAILTON, STEPHEN 1948",
+                NacoNormalizer.normalize("Railton, Stephen, 1948-", buffer));
+    }
+
     @Test
     public void testNormalizeNull() {
 